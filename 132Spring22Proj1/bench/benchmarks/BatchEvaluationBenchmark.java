@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import blackjack.BlackjackModel;
+import blackjack.HandBatch;
+import deckOfCards.Card;
+
+/*
+ * Measures evaluating a batch of hands with HandBatch against calling
+ * possibleHandValues and assessHand once per hand. The batch is measured
+ * both with the plain loops and with the Vector API kernel; the fork adds
+ * the jdk.incubator.vector module so that HandBatch.evaluate can use it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class BatchEvaluationBenchmark {
+
+	private static final int MAX_CARDS = 8;
+
+	@Param({"64", "1024", "16384"})
+	public int hands;
+
+	private ArrayList<ArrayList<Card>> cards;
+	private byte[] values;
+	private int[] totals;
+	private byte[] soft;
+	private byte[] assessments;
+
+	/* only batchVector asks for this, so without the vector kernel that one
+	 * benchmark fails and the others still run */
+	@State(Scope.Benchmark)
+	public static class VectorKernel {
+		@Setup
+		public void check() {
+			if(!HandBatch.isVectorized()) {
+				throw new IllegalStateException("HandBatch is not using the "
+						+ "vector kernel; build with mvn -Pbench package");
+			}
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(hands);
+		cards = new ArrayList<>();
+		for(int i = 0; i < hands; i++) {
+			ArrayList<Card> hand = new ArrayList<>();
+			int size = 2 + random.nextInt(4);
+			for(int card = 0; card < size; card++) {
+				hand.add(Card.fromId(random.nextInt(Card.NUMBER_OF_CARDS)));
+			}
+			cards.add(hand);
+		}
+		values = HandBatch.pack(cards, MAX_CARDS);
+		totals = new int[hands];
+		soft = new byte[hands];
+		assessments = new byte[hands];
+	}
+
+	@Benchmark
+	public void perHand(Blackhole blackhole) {
+		for(int i = 0; i < hands; i++) {
+			ArrayList<Card> hand = cards.get(i);
+			blackhole.consume(BlackjackModel.possibleHandValues(hand));
+			blackhole.consume(BlackjackModel.assessHand(hand));
+		}
+	}
+
+	@Benchmark
+	public byte[] batch() {
+		HandBatch.evaluateScalar(values, hands, MAX_CARDS, totals, soft,
+				assessments);
+		return assessments;
+	}
+
+	@Benchmark
+	public byte[] batchVector(VectorKernel kernel) {
+		HandBatch.evaluate(values, hands, MAX_CARDS, totals, soft, assessments);
+		return assessments;
+	}
+}
@@ -0,0 +1,28 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Runs every benchmark in this package with the GC profiler attached (the
+ * same as passing -prof gc to the JMH launcher), so each result also shows
+ * the bytes allocated per operation. An optional argument narrows the run
+ * to benchmarks matching a regular expression.
+ *
+ * mvn -Pbench package builds the benchmarks and runs this; add
+ * -Dbenchmarks=<regex> to narrow the run.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : "benchmarks\\..*";
+		Options options = new OptionsBuilder()
+				.include(include)
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
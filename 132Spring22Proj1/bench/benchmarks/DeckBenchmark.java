@@ -0,0 +1,106 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import deckOfCards.Card;
+import deckOfCards.Deck;
+import deckOfCards.Shoe;
+
+/*
+ * Measures building, shuffling and dealing from a Deck and a Shoe.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+
+	private static final int HAND_SIZE = 5;
+
+	@Param({"1", "6", "8"})
+	public int decks;
+
+	private Random random;
+	private Deck deck;
+	private Shoe shoe;
+
+	@Setup
+	public void setUp() {
+		random = new Random(132);
+		deck = new Deck();
+		shoe = new Shoe(decks);
+		shoe.shuffle(random);
+	}
+
+	@Benchmark
+	public Deck constructDeck() {
+		return new Deck();
+	}
+
+	@Benchmark
+	public Shoe constructShoe() {
+		return new Shoe(decks);
+	}
+
+	@Benchmark
+	public Shoe shuffleShoe() {
+		shoe.shuffle(random);
+		return shoe;
+	}
+
+	@Benchmark
+	public Deck shuffleDeck() {
+		deck.shuffle(random);
+		return deck;
+	}
+
+	/* shuffles a fresh deck and deals a typical hand of five cards from it */
+	@Benchmark
+	public Card dealHandFromShuffledDeck() {
+		Deck fresh = new Deck();
+		fresh.shuffle(random);
+		return dealHand(fresh);
+	}
+
+	/* the same hand from a lazily shuffled deck, which only draws a random
+	 * number for each card dealt */
+	@Benchmark
+	public Card dealHandFromLazyDeck() {
+		Deck fresh = new Deck();
+		fresh.shuffleLazily(random);
+		return dealHand(fresh);
+	}
+
+	/* deals one card, reshuffling the shoe whenever it runs dry so that the
+	 * cost of the shuffle is spread over a whole shoe of deals */
+	@Benchmark
+	public Card dealOneCard() {
+		if(shoe.cardsRemaining() == 0) {
+			shoe.shuffle(random);
+		}
+		return shoe.dealOneCard();
+	}
+
+	private static Card dealHand(Deck deck) {
+		Card card = null;
+		for(int i = 0; i < HAND_SIZE; i++) {
+			card = deck.dealOneCard();
+		}
+		return card;
+	}
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import blackjack.BlackjackModel;
+import blackjack.GameState;
+import blackjack.Rules;
+
+/*
+ * Measures branching from a GameState taken mid-hand: every line of play
+ * that hits up to three times before standing, plus doubling down, each
+ * played to the end. Also measures making a new future with
+ * withShuffledRemainder, which copies the cards left in a six deck shoe.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+
+	private GameState start;
+	private SplittableRandom random;
+
+	@Setup
+	public void setUp() {
+		Rules rules = Rules.DEFAULT.withNumberOfDecks(6).withDoubleAllowed(true);
+		BlackjackModel game = new BlackjackModel(rules);
+		game.createAndShuffleDeck(new SplittableRandom(132));
+		game.initialDealerCards();
+		game.initialPlayerCards();
+		start = game.snapshot(10);
+		random = new SplittableRandom(132);
+	}
+
+	@Benchmark
+	public long branchAllLines() {
+		long winnings = start.doubleDown().getWinnings();
+		GameState state = start;
+		for(int hits = 0; hits <= 3 && state.isPlayerTurn(); hits++) {
+			winnings += state.stand().getWinnings();
+			state = state.hit();
+		}
+		return winnings;
+	}
+
+	@Benchmark
+	public GameState newFuture() {
+		return start.withShuffledRemainder(random);
+	}
+}
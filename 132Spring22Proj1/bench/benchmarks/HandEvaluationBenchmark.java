@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import blackjack.BlackjackModel;
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+import blackjack.HandState;
+import deckOfCards.Card;
+
+/*
+ * Measures the hand evaluators on hands of a given size, both through the
+ * ArrayList methods and on a model whose hands are already dealt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandEvaluationBenchmark {
+
+	@Param({"2", "3", "5", "8"})
+	public int handSize;
+
+	private ArrayList<Card> hand;
+	private BlackjackModel game;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(handSize);
+		hand = randomHand(random);
+		game = new BlackjackModel();
+		game.setPlayerCards(randomHand(random));
+		game.setDealerCards(randomHand(random));
+	}
+
+	private ArrayList<Card> randomHand(Random random) {
+		ArrayList<Card> cards = new ArrayList<>();
+		for(int i = 0; i < handSize; i++) {
+			cards.add(Card.fromId(random.nextInt(Card.NUMBER_OF_CARDS)));
+		}
+		return cards;
+	}
+
+	@Benchmark
+	public ArrayList<Integer> possibleHandValues() {
+		return BlackjackModel.possibleHandValues(hand);
+	}
+
+	@Benchmark
+	public HandAssessment assessHand() {
+		return BlackjackModel.assessHand(hand);
+	}
+
+	@Benchmark
+	public int handStateOf() {
+		return HandState.of(hand);
+	}
+
+	@Benchmark
+	public GameResult gameAssessment() {
+		return game.gameAssessment();
+	}
+
+	@Benchmark
+	public boolean dealerShouldTakeCard() {
+		return game.dealerShouldTakeCard();
+	}
+}
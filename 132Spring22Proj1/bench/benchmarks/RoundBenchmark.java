@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import blackjack.BlackjackModel;
+import blackjack.GameResult;
+import blackjack.HandState;
+import deckOfCards.Card;
+import deckOfCards.Shoe;
+
+/*
+ * Measures a whole round from the deal to settlement, the way BlackjackGUI
+ * plays it. With decks = 0 every round gets a fresh 52 card Deck; otherwise
+ * the rounds share one shoe.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundBenchmark {
+
+	@Param({"0", "6"})
+	public int decks;
+
+	private Random random;
+	private BlackjackModel game;
+
+	@Setup
+	public void setUp() {
+		random = new Random(132);
+		game = decks == 0 ? new BlackjackModel()
+				: new BlackjackModel(new Shoe(decks, decks * Card.NUMBER_OF_CARDS - 30));
+	}
+
+	@Benchmark
+	public GameResult fullRound() {
+		game.createAndShuffleDeck(random);
+		game.initialDealerCards();
+		game.initialPlayerCards();
+		while(HandState.dealerShouldTakeCard(game.getPlayerState())) {
+			game.playerTakeCard();
+		}
+		while(game.dealerShouldTakeCard()) {
+			game.dealerTakeCard();
+		}
+		return game.gameAssessment();
+	}
+}
@@ -1,8 +1,10 @@
 package GUI;
 import blackjack.*;
 import deckOfCards.*;
+import strategy.HandEv;
 
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Color;
@@ -10,13 +12,15 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
+import java.util.random.RandomGenerator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import javax.swing.JButton;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.WindowConstants;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -24,18 +28,22 @@ import javax.swing.JFrame;
 
 public class BlackjackGUI extends JPanel {
 
-	public static void main(String[] args) {
+	public static void main(final String[] args) {
 		javax.swing.SwingUtilities.invokeLater(new Runnable() {
 			public void run() {
 				Thread.currentThread().setPriority(Thread.MAX_PRIORITY);		
-				new BlackjackGUI();
+				if (args.length > 0 && args[0].equals("--turbo")) {
+					new BlackjackGUI(0);
+				} else {
+					new BlackjackGUI();
+				}
 			}
 		});	
 	}
 
-	private int[] chips = new int[5];
-	private int[] originalChips;
-	private int[] bet = new int[5];
+	private ChipLedger chips = new ChipLedger(chipDenom);
+	private ChipLedger originalChips;
+	private ChipLedger bet = new ChipLedger(chipDenom);
 
 	private enum Mode {GAME_OVER, BETTING, PLAYER_TURN, DEALER_TURN}
 	private Mode gameMode = Mode.BETTING;
@@ -54,8 +62,15 @@ public class BlackjackGUI extends JPanel {
 	private static final int LEFT_MARGIN = 300;
 	private static final int CHIP_MARGIN = 20;
 	private static final int BET_MARGIN = 60;
+	private static final int BET_CIRCLE_SIZE = 188;
+	private static final int HAND_LABEL_HEIGHT = 30;
 
 	private static final int TIMER_DELAY = 1200;
+	private static final int HINT_X = LEFT_MARGIN + 2 * BUTTON_WIDTH + 50;
+	private static final int HINT_Y = PLAYER_CARD_V_OFFSET + CARD_HEIGHT + 15;
+
+	// drives the dealer's turn one card at a time on the event dispatch thread
+	private final Timer dealerTimer;
 
 	private JButton nextHandButton = new JButton("Place Bet");
 	private JButton hitButton = new JButton("Hit");
@@ -63,6 +78,11 @@ public class BlackjackGUI extends JPanel {
 	private JButton dealButton = new JButton ("Deal");
 	private JSlider slider = new JSlider();
 
+	// the house rules the table plays under
+	private final Rules rules = Rules.DEFAULT;
+
+	// shuffles every hand; one generator is reused for the whole session
+	private final RandomGenerator random = RandomGenerator.getDefault();
 	private BlackjackModel game;
 
 	private static final Color GREEN_FELT_COLOR = new Color(20, 160, 20);
@@ -74,14 +94,84 @@ public class BlackjackGUI extends JPanel {
 	private static final Font LARGE_FONT = new Font("Arial", Font.BOLD, 30);
 	private static final Font SMALL_FONT = new Font("Courier", Font.BOLD, 12);
 
-	private static int[] chipDenom = {500, 100, 50, 10, 5}; // each must be a factor of predecessor
+	private static long[] chipDenom = {500, 100, 50, 10, 5}; // each must be a factor of predecessor
 	private static String[] chipColor = {"pink", "black", "green", "blue", "red"};
 
 	private Color textColor;
 
+	// the result of the finished hand, set when the dealer's turn ends
+	private GameResult result;
+
+	// why the table images could not be loaded, or null if they could
+	private String imageError;
+
+	// the bet the slider showed when the chips were last split into stacks
+	private int shownBet = -1;
+
+	/* pre-drawn pieces of the table; each one is only redrawn when the
+	 * state it shows changes */
+	private final CachedLayer feltLayer = new CachedLayer();
+	private final CachedLayer dealerLayer = new CachedLayer();
+	private final CachedLayer playerLayer = new CachedLayer();
+	private final CachedLayer[] chipLayers = newLayers(chipDenom.length);
+	private final CachedLayer[] betLayers = newLayers(chipDenom.length);
+
+	// sprite indexes after the 52 card faces, which are indexed by card id
+	private static final int CARD_BACK_SPRITE = Card.NUMBER_OF_CARDS;
+	private static final int CHIP_SPRITE = CARD_BACK_SPRITE + 1;
+	private static final int SMALL_CHIP_SPRITE = CHIP_SPRITE + chipColor.length;
+
+	// every image the table draws, decoded in the background at startup
+	private final CompletableFuture<SpriteAtlas> sprites =
+			SpriteAtlas.loadAsync(getSpriteFileNames());
+
+	// the hit and stand values shown during the player's turn, worked out
+	// from the cards still left in the shoe
+	private final EvAdvisor advisor = new EvAdvisor(rules, new Runnable() {
+		public void run() {
+			repaint(HINT_X, HINT_Y, TABLE_WIDTH - HINT_X, BUTTON_HEIGHT);
+		}
+	});
+
+	/**
+	 * Creates the game window.  The pause between dealer cards defaults to
+	 * TIMER_DELAY milliseconds and can be changed with the
+	 * blackjack.dealerDelay system property.
+	 */
 	public BlackjackGUI() {
-		greedyChipAllocation(STARTING_CHIPS);
-		game = new BlackjackModel();
+		this(Integer.getInteger("blackjack.dealerDelay", TIMER_DELAY));
+	}
+
+	/**
+	 * Creates the game window.
+	 * @param dealerStepDelay milliseconds between dealer cards; 0 is "turbo"
+	 * mode, where the dealer plays out the hand as fast as the event
+	 * dispatch thread allows
+	 */
+	public BlackjackGUI(int dealerStepDelay) {
+		dealerTimer = new Timer(dealerStepDelay, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				dealerStep();
+			}
+		});
+		sprites.whenComplete(new BiConsumer<SpriteAtlas, Throwable>() {
+			public void accept(SpriteAtlas atlas, final Throwable failure) {
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (failure != null) {
+							// the table is still playable, just without pictures
+							Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+							imageError = cause.getMessage() != null ? cause.getMessage()
+									: "Unable to load the table images";
+						}
+						repaint();
+					}
+				});
+			}
+		});
+		chips.allocate(STARTING_CHIPS);
+		game = new BlackjackModel(rules);
 		setupWidgets();
 		attachListeners();
 		setupPanel();
@@ -97,7 +187,7 @@ public class BlackjackGUI extends JPanel {
 		hitButton.setVisible(false);
 		stayButton.setVisible(false);
 		dealButton.setVisible(true);
-		int chipTotal = getTotalValue(chips);
+		int chipTotal = getSliderLimit(chips.getTotal());
 		slider.setVisible(true);
 		slider.setBounds(BET_MARGIN + 5, 210, 500, 20);
 		slider.setBackground(GREEN_FELT_COLOR);
@@ -105,7 +195,7 @@ public class BlackjackGUI extends JPanel {
 		slider.setMaximum(chipTotal);
 		slider.setValue(getBestSliderValue(chipTotal));
 		slider.setFont(SMALL_FONT);
-		originalChips = Arrays.copyOf(chips, 5);
+		originalChips = new ChipLedger(chips);
 		removeBetFromChips();
 	}
 
@@ -137,10 +227,7 @@ public class BlackjackGUI extends JPanel {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				gameMode = Mode.BETTING;
-				originalChips = new int[chips.length];
-				for (int i = 0; i < chips.length; i++) {
-					originalChips[i] = chips[i];
-				}
+				originalChips = new ChipLedger(chips);
 				nextHandButton.setVisible(false);
 				dealButton.setVisible(true);
 				slider.setVisible(true);
@@ -153,13 +240,17 @@ public class BlackjackGUI extends JPanel {
 		hitButton.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
+				advisor.cancel();
 				game.playerTakeCard();
-				ArrayList<Card> hand = game.getPlayerCards();
+				List<Card> hand = game.playerHand();
 				HandAssessment status = BlackjackModel.assessHand(hand);
 				repaint();
 				if (status == HandAssessment.BUST) {
 					gameMode = Mode.DEALER_TURN;
 					doDealerTurn();
+				} else {
+					advisor.request(hand, game.dealerHand(),
+							game.getCountSnapshot());
 				}
 			}
 		});
@@ -167,6 +258,7 @@ public class BlackjackGUI extends JPanel {
 		stayButton.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
+				advisor.cancel();
 				gameMode = Mode.DEALER_TURN;
 				doDealerTurn();
 			}
@@ -180,9 +272,12 @@ public class BlackjackGUI extends JPanel {
 				stayButton.setVisible(true);
 				dealButton.setVisible(false);
 				slider.setVisible(false);
-				game.createAndShuffleDeck(new Random());
+				result = null;
+				game.createAndShuffleDeckLazily(random);
 				game.initialDealerCards();
 				game.initialPlayerCards();
+				advisor.request(game.playerHand(), game.dealerHand(),
+						game.getCountSnapshot());
 				repaint();
 			}
 		});
@@ -190,8 +285,11 @@ public class BlackjackGUI extends JPanel {
 		slider.addChangeListener(new ChangeListener() {
 			@Override
 			public void stateChanged(ChangeEvent e) {
-				removeBetFromChips();
-				repaint();
+				// a drag sends many events that round to the same bet
+				if (getSliderValue() != shownBet) {
+					removeBetFromChips();
+					repaintChipArea();
+				}
 			}
 		});
 	}
@@ -217,57 +315,28 @@ public class BlackjackGUI extends JPanel {
 		hitButton.setVisible(false);
 		stayButton.setVisible(false);
 		repaint();
-		new Timer().schedule(new DealerTask(), TIMER_DELAY);
-	}
-
-	private class DealerTask extends TimerTask {
-		@Override
-		public void run() {
-			if (game.dealerShouldTakeCard()) {
-				game.dealerTakeCard();
-				repaint();
-				new Timer().schedule(new DealerTask(), TIMER_DELAY);
-			} else {
-				gameMode = Mode.GAME_OVER;
-				nextHandButton.setVisible(true);
-				if (game.getDealerCards() != null && game.getPlayerCards() != null) {
-					GameResult result = game.gameAssessment();
-					if (result == GameResult.NATURAL_BLACKJACK) {
-						greedyChipAllocation((int)(getTotalValue(chips) + getTotalValue(bet) * 2.5));
-					} else if (result == GameResult.PLAYER_WON) {
-						for (int i = 0; i < 5; i++) {
-							chips[i] += 2 * bet[i];
-						}
-						reallocateIfNecessary();
-					} else if (result == GameResult.PUSH) {
-						for (int i = 0; i < 5; i ++) {
-							chips[i] += bet[i];
-						}
-						reallocateIfNecessary();
-					} else {  // lost money
-						reallocateIfNecessary();
-					}
-				}
-				repaint();
-			}
-		}
+		dealerTimer.restart();
 	}
 
-	private void reallocateIfNecessary() {
-		for (int i = 1; i < chips.length; i++) {
-			if (chips[i - 1] == 0) {  // ignore leading stack
-				continue;
-			}
-			int minNeededForChange = chipDenom[i - 1] / chipDenom[i];
-			if (chips[i] > 18 || chips[i] < minNeededForChange) {
-				greedyChipAllocation(getTotalValue(chips));
-				return;
+	/* runs on the event dispatch thread each time dealerTimer fires */
+	private void dealerStep() {
+		if (game.dealerShouldTakeCard()) {
+			game.dealerTakeCard();
+			repaint();
+		} else {
+			dealerTimer.stop();
+			gameMode = Mode.GAME_OVER;
+			nextHandButton.setVisible(true);
+			if (game.dealerHand() != null && game.playerHand() != null) {
+				result = game.gameAssessment();
+				chips.settle(bet, result, rules);
 			}
+			repaint();
 		}
 	}
 
 	private void calibrateSlider() {
-		int chipTotal = getTotalValue(chips);
+		int chipTotal = getSliderLimit(chips.getTotal());
 		slider.setMinimum(0);
 		slider.setMaximum(chipTotal);
 		slider.setValue(getBestSliderValue(chipTotal));
@@ -277,38 +346,35 @@ public class BlackjackGUI extends JPanel {
 		super.paint(g);
 		g.setFont(NORMAL_FONT);
 		textColor = Color.BLACK;
-		g.setColor(new Color(0, 110, 0));
-		g.fillOval(BET_MARGIN, 12, 188, 188);
+		feltLayer.draw(g, BET_MARGIN, 12, BET_CIRCLE_SIZE, BET_CIRCLE_SIZE, null, 0,
+				new CachedLayer.Painter() {
+			public void paint(Graphics2D layer) {
+				layer.setColor(new Color(0, 110, 0));
+				layer.fillOval(0, 0, BET_CIRCLE_SIZE, BET_CIRCLE_SIZE);
+			}
+		});
 		g.setColor(Color.BLACK);
 		if (game != null) {
 			if (gameMode != Mode.BETTING) {
-				ArrayList<Card> dealerHand = game.getDealerCards();
-				ArrayList<Card> playerHand = game.getPlayerCards();
+				List<Card> dealerHand = game.dealerHand();
+				List<Card> playerHand = game.playerHand();
 				if (dealerHand != null && dealerHand.size() > 0) {
-					String toDraw = "Dealer ";
-					if (gameMode == Mode.DEALER_TURN || gameMode == Mode.GAME_OVER) {
-						toDraw += getValuesString(dealerHand);
-					}
-					g.setColor(textColor);
-					g.drawString(toDraw, LEFT_MARGIN + 65, DEALER_CARD_V_OFFSET - 10);
-					boolean downCard = false;
-					if (gameMode == Mode.PLAYER_TURN) {
-						downCard =  true;
-					}
-					drawCards(g, dealerHand, downCard, DEALER_CARD_V_OFFSET);
+					boolean showValues = gameMode == Mode.DEALER_TURN || gameMode == Mode.GAME_OVER;
+					boolean downCard = gameMode == Mode.PLAYER_TURN;
+					drawHand(g, dealerLayer, dealerHand, game.getDealerState(), "Dealer ", showValues,
+							downCard, 65, DEALER_CARD_V_OFFSET);
 				}
 
 				if (playerHand != null && playerHand.size() > 0) {
-					String toDraw = getValuesString(playerHand);
-					g.setColor(textColor);
-					g.drawString(toDraw, LEFT_MARGIN + 70, PLAYER_CARD_V_OFFSET - 10);
-					drawCards(g, playerHand, false, PLAYER_CARD_V_OFFSET);
+					drawHand(g, playerLayer, playerHand, game.getPlayerState(), "", true, false, 70,
+							PLAYER_CARD_V_OFFSET);
 				}
 			}
 			if (gameMode == Mode.GAME_OVER) {
-				if (game.getDealerCards() != null && game.getPlayerCards() != null) {
-					GameResult result = game.gameAssessment();
+				if (result != null) {
 					g.setFont(LARGE_FONT);
+					// a push is shown in the color of the player's hand
+					textColor = getValuesColor(game.getPlayerState());
 					String resultString = getGameResultString(result);
 					g.setColor(textColor);
 					g.drawString(resultString, BET_MARGIN + 20, 120);
@@ -320,13 +386,80 @@ public class BlackjackGUI extends JPanel {
 				g.setFont(NORMAL_FONT);
 				g.setColor(Color.BLACK);
 				g.drawString("Bet: $" + getSliderValue(), BET_MARGIN + 50, 155);
+				if (gameMode == Mode.PLAYER_TURN) {
+					drawHint(g);
+				}
 			}
 			drawChips(g);
 		}
+		if (imageError != null) {
+			g.setFont(SMALL_FONT);
+			g.setColor(Color.BLACK);
+			g.drawString(imageError, HINT_X, 20);
+			g.setFont(NORMAL_FONT);
+		}
+	}
+
+	/* draws a hand's label and cards through its cached layer. The model
+	 * starts a new hand view every hand and a hand only grows during one, so
+	 * the view and its packed HandState tell when the cards have changed; the
+	 * layer is only redrawn then or when the way they are shown changes */
+	private void drawHand(Graphics g, CachedLayer layer, final List<Card> hand, final int handState,
+			final String label, final boolean showValues, final boolean lastCardDown,
+			final int labelX, int height) {
+		long state = (long) handState << 3 | (showValues ? 4 : 0) | (lastCardDown ? 2 : 0)
+				| (getAtlas() != null ? 1 : 0);
+		layer.draw(g, LEFT_MARGIN, height - HAND_LABEL_HEIGHT, TABLE_WIDTH - LEFT_MARGIN,
+				HAND_LABEL_HEIGHT + CARD_HEIGHT, hand, state, new CachedLayer.Painter() {
+			public void paint(Graphics2D layerGraphics) {
+				String toDraw = label;
+				Color color = Color.BLACK;
+				if (showValues) {
+					toDraw += getValuesString(handState);
+					color = getValuesColor(handState);
+				}
+				layerGraphics.setFont(NORMAL_FONT);
+				layerGraphics.setColor(color);
+				layerGraphics.drawString(toDraw, labelX, HAND_LABEL_HEIGHT - 10);
+				drawCards(layerGraphics, hand, lastCardDown, 20, HAND_LABEL_HEIGHT);
+			}
+		});
+	}
+
+	/* shows the value of hitting and standing once the advisor has them,
+	 * with the better choice in white */
+	private void drawHint(Graphics g) {
+		HandEv hint = advisor.getCurrent();
+		if (hint == null) {
+			return;
+		}
+		g.setFont(NORMAL_FONT);
+		int y = HINT_Y + BUTTON_HEIGHT - 10;
+		String stand = String.format("Stand %+.3f", hint.getStandEv());
+		g.setColor(hint.shouldHit() ? Color.BLACK : HAPPY_COLOR);
+		g.drawString(stand, HINT_X, y);
+		g.setColor(hint.shouldHit() ? HAPPY_COLOR : Color.BLACK);
+		g.drawString(String.format("Hit %+.3f", hint.getHitEv()),
+				HINT_X + g.getFontMetrics().stringWidth(stand) + 20, y);
+		g.setColor(Color.BLACK);
+	}
+
+	/* repaints only the bet circle and the chip stacks, which are the parts
+	 * of the table that change while the player picks a bet */
+	private void repaintChipArea() {
+		repaint(0, 0, LEFT_MARGIN, TABLE_HEIGHT);
+	}
+
+	private static CachedLayer[] newLayers(int count) {
+		CachedLayer[] layers = new CachedLayer[count];
+		for (int i = 0; i < count; i++) {
+			layers[i] = new CachedLayer();
+		}
+		return layers;
 	}
 
 	private int getSliderValue() {
-		int total = getTotalValue(chips) + getTotalValue(bet);
+		long total = chips.getTotal() + bet.getTotal();
 		int factor;
 		if (total > 49000) {
 			factor = 1000;
@@ -343,55 +476,22 @@ public class BlackjackGUI extends JPanel {
 	
 	private void drawBetChips(Graphics g) {
 		for (int i = 0; i < chipDenom.length; i++) {
-			drawChipStack(g, chipColor[i] + "ChipSmall.png", BET_MARGIN + 5 + i * 35, 100, 4, bet[i]);
-		}
-	}
-
-	private void greedyChipAllocation(int toGo) {
-		for (int i = 0; i < chips.length; i++) {
-			chips[i] = 0;
-		}
-		for (int i = 0; i < chipDenom.length; i++) {
-			while (toGo >= chipDenom[i]) {
-				chips[i]++;
-				toGo -= chipDenom[i];
-			}
-		}
-		for (int i = 1; i < chips.length; i++) {
-			int needed = (13 - 2 * i) - chips[i];
-			while (needed > 0) {
-				if (chips[i - 1] > 0) {
-					chips[i - 1]--;
-					int numberToAdd = chipDenom[i - 1] / chipDenom[i];
-					chips[i] += numberToAdd;
-					needed -= numberToAdd;
-				} else {
-					break;
-				}
-			}
+			drawChipStack(g, betLayers[i], SMALL_CHIP_SPRITE + i, BET_MARGIN + 5 + i * 35, 100, 4, bet.getCount(i));
 		}
 	}
 
 	private void removeBetFromChips() {
-		bet = new int[5];
-		chips = Arrays.copyOf(originalChips, 5);
+		bet.clear();
+		chips.copyFrom(originalChips);
 		int toGo = getSliderValue();
-		for (int i = 0; i < chips.length; i++) {
-			while (chipDenom[i] <= toGo && chips[i] > 0) {
-				bet[i]++;
-				chips[i]--;
-				if (chips[i] < 0) {
-					throw new RuntimeException("chip stack got negative");
-				}
-				toGo -= chipDenom[i];
-			}
-		}
+		shownBet = toGo;
+		chips.take(toGo, bet);
 	}
 	
 	private void drawChips(Graphics g) {
 		g.setFont(SMALL_FONT);
 		for (int i = 0; i < chipDenom.length; i++) {
-			drawChipStack(g, chipColor[i] + "Chip.png", CHIP_MARGIN + i * 50, TABLE_HEIGHT - 110, 6, chips[i]);
+			drawChipStack(g, chipLayers[i], CHIP_SPRITE + i, CHIP_MARGIN + i * 50, TABLE_HEIGHT - 110, 6, chips.getCount(i));
 			String padding = "";
 			if (chipDenom[i] < 100) {
 				padding = " ";
@@ -399,15 +499,15 @@ public class BlackjackGUI extends JPanel {
 			g.drawString(padding + "$" + chipDenom[i], CHIP_MARGIN + i * 50 + 10, TABLE_HEIGHT - 55);
 		}
 		g.setFont(LARGE_FONT);
-		g.drawString("$" + getTotalValue(chips), CHIP_MARGIN + 95, TABLE_HEIGHT - 20);
+		g.drawString("$" + chips.getTotal(), CHIP_MARGIN + 95, TABLE_HEIGHT - 20);
 		g.setFont(NORMAL_FONT);
 	}
 
 	private String getGameResultString(GameResult result) {
-		int totalBet = getTotalValue(bet);
+		long totalBet = bet.getTotal();
 		if (result == GameResult.NATURAL_BLACKJACK) {
 			textColor = HAPPY_COLOR;
-			return "Won $" + (int)(totalBet * 1.5);
+			return "Won $" + rules.getWinnings(totalBet, result);
 		}
 		if (result == GameResult.PLAYER_LOST) {
 			textColor = RED_COLOR;
@@ -420,27 +520,36 @@ public class BlackjackGUI extends JPanel {
 		return "    Push";
 	}
 
-	private String getValuesString(ArrayList<Card> hand) {
-		textColor = Color.BLACK;
-		ArrayList<Integer> values = BlackjackModel.possibleHandValues(hand);
-		String toDraw = " (" + values.get(0);
-		if (values.size() == 2) {
-			toDraw += "/" + values.get(1);
+	/* the values of a hand from its packed HandState, as
+	 * BlackjackModel.possibleHandValues gives them, and how it stands */
+	private static String getValuesString(int handState) {
+		String toDraw = " (" + HandState.hardTotal(handState);
+		if (HandState.isSoft(handState)) {
+			toDraw += "/" + HandState.bestTotal(handState);
 		}
 		toDraw += ")";
-		HandAssessment status = BlackjackModel.assessHand(hand);
+		HandAssessment status = HandState.assess(handState);
 		if (status == HandAssessment.NATURAL_BLACKJACK) {
 			toDraw += "  BLACKJACK!";
-			textColor = HAPPY_COLOR;
 		} else if (status == HandAssessment.BUST) {
 			toDraw += "  [BUST]";
-			textColor = RED_COLOR;
 		}
 		return toDraw;
 	}
 
-	private void drawCards(Graphics g, ArrayList<Card> hand, boolean lastCardDown, int height) {
-		int xPos = LEFT_MARGIN + 20;
+	/* the color a hand's values are drawn in */
+	private static Color getValuesColor(int handState) {
+		HandAssessment status = HandState.assess(handState);
+		if (status == HandAssessment.NATURAL_BLACKJACK) {
+			return HAPPY_COLOR;
+		}
+		if (status == HandAssessment.BUST) {
+			return RED_COLOR;
+		}
+		return Color.BLACK;
+	}
+
+	private void drawCards(Graphics g, List<Card> hand, boolean lastCardDown, int xPos, int height) {
 		for (int i = 0; i < hand.size(); i++) {
 			Card c = hand.get(i);
 			if (lastCardDown && i == hand.size() - 1) {
@@ -456,13 +565,48 @@ public class BlackjackGUI extends JPanel {
 	}
 
 	private void drawCard(Graphics g, Card c, int x, int y) {
-		String cardName;
+		int sprite;
 		if (c == null) {
-			cardName = "images/b2fv.gif";  // face-down
+			sprite = CARD_BACK_SPRITE;  // face-down
 		} else {
-			cardName = getImageFileName(c);
+			sprite = c.getId();
+		}
+		drawSprite(g, sprite, x, y);
+	}
+
+	/* draws one sprite, or nothing if the atlas is still loading (the panel
+	 * is repainted as soon as it is ready) */
+	private void drawSprite(Graphics g, int sprite, int x, int y) {
+		SpriteAtlas atlas = getAtlas();
+		if (atlas != null) {
+			g.drawImage(atlas.get(sprite), x, y, this);
 		}
-		g.drawImage(ImageLoader.getImage(cardName), x, y, this);
+	}
+
+	/* returns the sprite atlas, or null while it is loading or if it could
+	 * not be loaded (the failure is reported once, when it happens) */
+	private SpriteAtlas getAtlas() {
+		if (!sprites.isDone() || sprites.isCompletedExceptionally()) {
+			return null;
+		}
+		return sprites.join();
+	}
+
+	/* lists the image for each sprite index: the 52 card faces by card id,
+	 * the card back, the chips and then the small chips */
+	private static List<String> getSpriteFileNames() {
+		List<String> names = new ArrayList<>();
+		for (int id = 0; id < Card.NUMBER_OF_CARDS; id++) {
+			names.add(getImageFileName(Card.fromId(id)));
+		}
+		names.add("images/b2fv.gif");
+		for (String color : chipColor) {
+			names.add("images/" + color + "Chip.png");
+		}
+		for (String color : chipColor) {
+			names.add("images/" + color + "ChipSmall.png");
+		}
+		return names;
 	}
 
 	private static String[] suitPrefix = {"s", "d", "c", "h"};
@@ -485,19 +629,31 @@ public class BlackjackGUI extends JPanel {
 		return "images/" + retValue + ".gif";	
 	}
 
-	private void drawChipStack(Graphics g, String image, int x, int y, int separation, int count) {
-		BufferedImage chip = ImageLoader.getImage("images/" + image);
-		for (int i = 0; i < count; i++) {
-			g.drawImage(chip, x, y - separation * i, this);
+	/* draws a stack of count chips whose bottom chip is at (x, y), through
+	 * the stack's cached layer. Chips that would sit above the top of the
+	 * panel are left out */
+	private void drawChipStack(Graphics g, CachedLayer layer, final int sprite, int x, int y,
+			final int separation, long count) {
+		SpriteAtlas atlas = getAtlas();
+		if (atlas == null || count <= 0) {
+			return;
 		}
+		final BufferedImage chip = atlas.get(sprite);
+		final int visible = (int) Math.min(count, y / separation + 1);
+		final int top = separation * (visible - 1);
+		layer.draw(g, x, y - top, chip.getWidth(), top + chip.getHeight(), atlas, visible,
+				new CachedLayer.Painter() {
+			public void paint(Graphics2D layerGraphics) {
+				for (int i = 0; i < visible; i++) {
+					layerGraphics.drawImage(chip, 0, top - separation * i, null);
+				}
+			}
+		});
 	}
 
-	private static int getTotalValue(int[] a) {
-		int total = 0;
-		for (int i = 0; i < a.length; i++) {
-			total += a[i] * chipDenom[i];
-		}
-		return total;
+	/* the slider works in ints, so bankrolls beyond that are capped */
+	private static int getSliderLimit(long total) {
+		return (int) Math.min(total, Integer.MAX_VALUE);
 	}
 
 } 
\ No newline at end of file
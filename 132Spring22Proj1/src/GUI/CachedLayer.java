@@ -0,0 +1,51 @@
+package GUI;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/*
+ * A CachedLayer keeps one pre-drawn piece of the table (a hand, a chip
+ * stack, ...) in an off-screen image together with the key it was drawn
+ * from. Drawing the layer with the same key just copies the image; a new
+ * key redraws it first.
+ *
+ * A key is an object compared by identity, such as the hand being shown,
+ * and a long packing whatever else the picture depends on, so checking it
+ * allocates nothing.
+ */
+class CachedLayer {
+
+	/* draws the contents of a layer into its off-screen image */
+	interface Painter {
+		void paint(Graphics2D g);
+	}
+
+	private Object source;
+	private long state;
+	private BufferedImage image;
+
+	/* draws the layer at (x, y), redrawing it first with painter if source
+	 * is not the object it was last drawn from or state has changed. width
+	 * and height give the size of the off-screen image */
+	void draw(Graphics g, int x, int y, int width, int height, Object source,
+			long state, Painter painter) {
+		if (image == null || source != this.source || state != this.state) {
+			if (image == null || image.getWidth() != width
+					|| image.getHeight() != height) {
+				image = new BufferedImage(Math.max(1, width), Math.max(1, height),
+						BufferedImage.TYPE_INT_ARGB);
+			}
+			Graphics2D layer = image.createGraphics();
+			layer.setComposite(AlphaComposite.Clear);
+			layer.fillRect(0, 0, image.getWidth(), image.getHeight());
+			layer.setComposite(AlphaComposite.SrcOver);
+			painter.paint(layer);
+			layer.dispose();
+			this.source = source;
+			this.state = state;
+		}
+		g.drawImage(image, x, y, null);
+	}
+}
@@ -0,0 +1,163 @@
+package GUI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import blackjack.HandState;
+import blackjack.Rules;
+import deckOfCards.Card;
+import deckOfCards.CountSnapshot;
+import strategy.CompositionCache;
+import strategy.DealerOutcomeService;
+import strategy.HandEv;
+import strategy.HandEvaluator;
+
+/**
+ * Works out the value of hitting and standing for the hand on the table
+ * without holding up the event dispatch thread.
+ *
+ * <p>Requests are evaluated by a single background thread with room for one
+ * waiting request, so a burst of clicks can never pile up work.  Asking
+ * about a new situation or calling {@link #cancel()} interrupts the
+ * evaluation in progress.  Finished answers are cached by situation, so a
+ * spot that has come up before is answered straight away.
+ *
+ * <p>The unseen cards are taken from what the deck actually has left, so
+ * the answers stay right for a shoe that has dealt earlier hands.
+ *
+ * <p>All methods must be called on the event dispatch thread, and the
+ * listener is also called there.
+ */
+class EvAdvisor {
+
+	// the answers kept per upcard value; situations repeat a lot
+	private static final int CACHE_SIZE = 1 << 12;
+
+	/* a cached answer and the player's hand it is for, since with a shoe
+	 * the unseen cards no longer pin down the player's cards */
+	private static class Answer {
+		final int playerState;
+		final HandEv ev;
+
+		Answer(int playerState, HandEv ev) {
+			this.playerState = playerState;
+			this.ev = ev;
+		}
+	}
+
+	private final Runnable listener;
+	private final HandEvaluator evaluator;
+	private final List<CompositionCache<Answer>> answers = new ArrayList<>();
+	private final ThreadPoolExecutor executor;
+
+	// the evaluation for the current situation, if it is still running
+	private Future<?> pending;
+
+	// bumped on every request so a late answer for an old hand is ignored
+	private int generation;
+	private HandEv current;
+
+	/**
+	 * Creates an advisor for hands dealt under the given rules.
+	 * @param rules the rules of the table
+	 * @param listener run on the event dispatch thread whenever the current
+	 * answer changes
+	 */
+	EvAdvisor(Rules rules, Runnable listener) {
+		this.evaluator = new HandEvaluator(new DealerOutcomeService(1 << 16, rules));
+		this.listener = listener;
+		for (int value = 1; value <= 10; value++) {
+			answers.add(new CompositionCache<Answer>(CACHE_SIZE));
+		}
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(1), new ThreadFactory() {
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "ev-advisor");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		}, new ThreadPoolExecutor.DiscardOldestPolicy());
+	}
+
+	/**
+	 * Starts working out the values for the player's hand against the
+	 * dealer's upcard, dropping any earlier request.
+	 * @param playerCards the player's cards
+	 * @param dealerCards the dealer's cards, the upcard first and then the
+	 * hole card, which the player has not seen
+	 * @param remaining what the deck has left to deal
+	 */
+	void request(List<Card> playerCards, List<Card> dealerCards,
+			CountSnapshot remaining) {
+		cancel();
+		final int upcardValue = dealerCards.get(0).getRank().getValue();
+		final int playerState = HandState.of(playerCards);
+		final long situation = HandEvaluator.unseen(remaining,
+				dealerCards.subList(1, dealerCards.size()));
+		final CompositionCache<Answer> cache = answers.get(upcardValue - 1);
+		Answer cached = cache.get(situation);
+		if (cached != null && cached.playerState == playerState) {
+			publish(cached.ev);
+			return;
+		}
+		final int requested = generation;
+		pending = executor.submit(new Runnable() {
+			public void run() {
+				final HandEv answer;
+				try {
+					answer = evaluator.evaluate(playerState, upcardValue, situation);
+				} catch (CancellationException e) {
+					return;
+				}
+				cache.put(situation, new Answer(playerState, answer));
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (requested == generation) {
+							pending = null;
+							publish(answer);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Stops the evaluation in progress, if any, and forgets the current
+	 * answer.
+	 */
+	void cancel() {
+		generation++;
+		if (pending != null) {
+			pending.cancel(true);
+			pending = null;
+		}
+		if (current != null) {
+			current = null;
+			listener.run();
+		}
+	}
+
+	/**
+	 * Returns the answer for the current situation.
+	 * @return the values of hitting and standing, or null while they are
+	 * still being worked out
+	 */
+	HandEv getCurrent() {
+		return current;
+	}
+
+	private void publish(HandEv answer) {
+		current = answer;
+		listener.run();
+	}
+}
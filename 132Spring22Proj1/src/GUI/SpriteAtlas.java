@@ -0,0 +1,116 @@
+package GUI;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+
+/*
+ * A SpriteAtlas decodes a fixed list of image files once, packs them into a
+ * single image, and hands out views of that image by index.
+ *
+ * Decoding runs in parallel on the fork/join common pool, so it never blocks
+ * the event dispatch thread. Once built an atlas never changes, so looking
+ * up a sprite is a plain array read with no locking.
+ */
+public final class SpriteAtlas {
+
+	// the widest the packed image may grow before starting a new row
+	private static final int MAX_ATLAS_WIDTH = 1024;
+
+	private final BufferedImage atlas;
+	private final BufferedImage[] sprites;
+
+	private SpriteAtlas(BufferedImage atlas, BufferedImage[] sprites) {
+		this.atlas = atlas;
+		this.sprites = sprites;
+	}
+
+	/**
+	 * Starts decoding the given files in the background.
+	 *
+	 * @param fileNames
+	 *            local file names; the position of a name in the list is
+	 *            the index of its sprite
+	 * @return a future that completes with the atlas once every file is
+	 *         decoded and packed
+	 */
+	public static CompletableFuture<SpriteAtlas> loadAsync(List<String> fileNames) {
+		return CompletableFuture.supplyAsync(() -> {
+			BufferedImage[] decoded = new BufferedImage[fileNames.size()];
+			IntStream.range(0, decoded.length).parallel()
+					.forEach(i -> decoded[i] = decode(fileNames.get(i)));
+			return pack(decoded);
+		});
+	}
+
+	/**
+	 * Returns one sprite.  The returned image shares its pixels with the
+	 * atlas and must not be drawn on.
+	 */
+	public BufferedImage get(int index) {
+		return sprites[index];
+	}
+
+	/**
+	 * Returns the number of sprites in the atlas.
+	 */
+	public int size() {
+		return sprites.length;
+	}
+
+	/**
+	 * Returns the packed image that holds every sprite.
+	 */
+	public BufferedImage getAtlasImage() {
+		return atlas;
+	}
+
+	private static BufferedImage decode(String fileName) {
+		try {
+			BufferedImage image = ImageIO.read(new File(fileName));
+			if (image == null) {
+				throw new IOException("no image decoder for " + fileName);
+			}
+			return image;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to load image " + fileName, e);
+		}
+	}
+
+	/* lays the images out left to right in rows and copies them into one
+	 * ARGB image */
+	private static SpriteAtlas pack(BufferedImage[] images) {
+		int[] x = new int[images.length];
+		int[] y = new int[images.length];
+		int rowX = 0, rowY = 0, rowHeight = 0, width = 0;
+		for (int i = 0; i < images.length; i++) {
+			if (rowX > 0 && rowX + images[i].getWidth() > MAX_ATLAS_WIDTH) {
+				rowY += rowHeight;
+				rowX = 0;
+				rowHeight = 0;
+			}
+			x[i] = rowX;
+			y[i] = rowY;
+			rowX += images[i].getWidth();
+			rowHeight = Math.max(rowHeight, images[i].getHeight());
+			width = Math.max(width, rowX);
+		}
+		BufferedImage atlas = new BufferedImage(Math.max(1, width),
+				Math.max(1, rowY + rowHeight), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = atlas.createGraphics();
+		BufferedImage[] sprites = new BufferedImage[images.length];
+		for (int i = 0; i < images.length; i++) {
+			g.drawImage(images[i], x[i], y[i], null);
+			sprites[i] = atlas.getSubimage(x[i], y[i], images[i].getWidth(),
+					images[i].getHeight());
+		}
+		g.dispose();
+		return new SpriteAtlas(atlas, sprites);
+	}
+}
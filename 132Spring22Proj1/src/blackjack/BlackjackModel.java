@@ -1,13 +1,21 @@
 package blackjack;
 
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Collections;
+import java.util.List;
+import java.util.random.RandomGenerator;
 
 import deckOfCards.*;
+import metrics.RoundMetrics;
+import metrics.RoundStageEvent;
+import metrics.Stage;
 
 /*
  * A BlackjackModel simulates a blackjack game.
  * It can be used to play a blackjack game
+ *
+ * Every stage of a round is reported to RoundMetrics, which times it for
+ * Flight Recorder and the in-process metrics when either is turned on.
  */
 public class BlackjackModel {
 
@@ -17,9 +25,55 @@ public class BlackjackModel {
 	// an ArrayList of Cards representing the player's cards
 	private ArrayList<Card> playerCards;
 
+	/* read-only views of dealerCards and playerCards, made once per hand and
+	 * handed out by dealerHand and playerHand instead of copies */
+	private List<Card> dealerHand;
+	private List<Card> playerHand;
+
+	/* the packed HandState of each hand, kept up to date as cards are dealt
+	 * so the hands never need to be re-scanned */
+	private int dealerState;
+	private int playerState;
+
 	// the deck of cards that will be used to deal cards to dealer and player
 	private Deck deck;
 
+	/* a multi-deck shoe that is kept across hands, or null if every hand is
+	 * dealt from a fresh 52 card deck */
+	private Shoe shoe;
+
+	// the house rules the dealer plays and the hands are settled by
+	private final Rules rules;
+
+	/* creates a game that deals every hand from a freshly shuffled 52 card
+	 * deck */
+	public BlackjackModel() {
+		this(Rules.DEFAULT, null);
+	}
+
+	/* creates a game that deals every hand from the given shoe. The shoe is
+	 * only reshuffled when its cut card has come out */
+	public BlackjackModel(Shoe shoe) {
+		this(Rules.DEFAULT, shoe);
+	}
+
+	/* creates a game played by the given rules, with a shoe of the rules'
+	 * number of decks (or a fresh deck every hand for a single deck game) */
+	public BlackjackModel(Rules rules) {
+		this(rules, rules.newShoe());
+	}
+
+	/* creates a game played by the given rules that deals from the given
+	 * shoe, or from a fresh deck every hand if shoe is null */
+	public BlackjackModel(Rules rules, Shoe shoe) {
+		this.rules = rules;
+		this.shoe = shoe;
+	}
+
+	public Rules getRules() {
+		return rules;
+	}
+
 	/* a getter for dealerCards. Creates and returns a deep copy of 
 	 * dealerCards (prevents privacy leak) */
 	public ArrayList<Card> getDealerCards(){
@@ -40,84 +94,185 @@ public class BlackjackModel {
 		return copyPlayerCards;
 	}
 
-	/* a setter for dealerCards. assigns dealerCards to the parameter */
+	/* returns a read-only view of the dealer's cards. It is not a copy: it
+	 * shows each card as it is dealt, until the next hand starts with a new
+	 * list, after which it keeps showing the hand it was taken from. Any
+	 * attempt to change it throws UnsupportedOperationException. Read it on
+	 * the thread that plays the game */
+	public List<Card> dealerHand() {
+		return dealerHand;
+	}
+
+	/* returns a read-only view of the player's cards, like dealerHand */
+	public List<Card> playerHand() {
+		return playerHand;
+	}
+
+	/* a setter for dealerCards. assigns dealerCards to a copy of the
+	 * parameter and evaluates it. Changes made to the list afterwards are not
+	 * seen by the model */
 	public void setDealerCards(ArrayList<Card> cards) {
-		dealerCards = cards;
+		dealerCards = new ArrayList<>(cards);
+		dealerHand = Collections.unmodifiableList(dealerCards);
+		dealerState = HandState.of(cards);
 	}
 
-	/* a setter for playerCards. assigns playerCards to the parameter */
+	/* a setter for playerCards. assigns playerCards to a copy of the
+	 * parameter and evaluates it. Changes made to the list afterwards are not
+	 * seen by the model */
 	public void setPlayerCards(ArrayList<Card> cards) {
-		playerCards = cards;
+		playerCards = new ArrayList<>(cards);
+		playerHand = Collections.unmodifiableList(playerCards);
+		playerState = HandState.of(cards);
+	}
+
+	/* returns the dealer's face-up card, which is the first card dealt to
+	 * the dealer (the GUI keeps the last card face down) */
+	public Card getDealerUpcard() {
+		return dealerCards.get(0);
+	}
+
+	/* returns the packed HandState of the dealer's hand */
+	public int getDealerState() {
+		return dealerState;
+	}
+
+	/* returns the packed HandState of the player's hand */
+	public int getPlayerState() {
+		return playerState;
 	}
 
-	/* This method instantiates the deck variable and shuffles the deck */
-	public void createAndShuffleDeck(Random random) {
-		deck = new Deck();
-		deck.shuffle(random);
+	/* returns what the deck has left to deal by rank, or null before the
+	 * first hand has been prepared. With a shoe this leaves out every card
+	 * dealt since the shoe was last shuffled, not just this hand's */
+	public CountSnapshot getCountSnapshot() {
+		return deck == null ? null : deck.getCountSnapshot();
+	}
+
+	/* This method prepares the deck for a new hand. Without a shoe it
+	 * instantiates the deck variable and shuffles the deck. With a shoe it
+	 * keeps dealing from the same shoe and only shuffles it when the cut card
+	 * has been reached */
+	public void createAndShuffleDeck(RandomGenerator random) {
+		RoundStageEvent event = RoundMetrics.begin(Stage.SHUFFLE);
+		if(shoe == null) {
+			deck = new Deck();
+			deck.shuffle(random);
+		} else {
+			useShoe(random);
+		}
+		RoundMetrics.end(event, 0, 0);
+	}
+
+	/* like createAndShuffleDeck, but a fresh deck is shuffled lazily, one
+	 * card at a time as the hand is dealt, since a hand only uses a few of
+	 * its cards. The cards come out in a different order than
+	 * createAndShuffleDeck gives for the same generator */
+	public void createAndShuffleDeckLazily(RandomGenerator random) {
+		RoundStageEvent event = RoundMetrics.begin(Stage.SHUFFLE);
+		if(shoe == null) {
+			deck = new Deck();
+			deck.shuffleLazily(random);
+		} else {
+			useShoe(random);
+		}
+		RoundMetrics.end(event, 0, 0);
+	}
+
+	/* deals the next hand from the shoe, reshuffling it first if the cut
+	 * card has come out */
+	private void useShoe(RandomGenerator random) {
+		if(shoe.needsShuffle()) {
+			shoe.shuffle(random);
+		}
+		deck = shoe;
 	}
 
 	/* this method instantiates dealerCards and deals the initial 2 cards 
 	 * to the dealer (adds 2 cards to dealerCards) */
 	public void initialDealerCards() {
+		RoundStageEvent event = RoundMetrics.begin(Stage.INITIAL_DEALER_CARDS);
 		dealerCards = new ArrayList<>();
+		dealerHand = Collections.unmodifiableList(dealerCards);
+		dealerState = HandState.EMPTY;
 		for(int i = 0; i < 2; i++) {
-			dealerCards.add(deck.dealOneCard());
+			dealerTakeCard();
 		}
+		end(event);
 	}
 
 	/* this method instantiates playerCards and deals the initial 2 cards 
 	 * to the player (adds 2 cards to playerCards) */
 	public void initialPlayerCards() {
+		RoundStageEvent event = RoundMetrics.begin(Stage.INITIAL_PLAYER_CARDS);
 		playerCards = new ArrayList<>();
+		playerHand = Collections.unmodifiableList(playerCards);
+		playerState = HandState.EMPTY;
 		for(int i = 0; i < 2; i++) {
-			playerCards.add(deck.dealOneCard());
+			playerTakeCard();
 		}
+		end(event);
 	}
 
 	/* this method deals one card to the player (adds 1 card to playerCards) */
 	public void playerTakeCard() {
-		playerCards.add(deck.dealOneCard());
+		RoundStageEvent event = RoundMetrics.begin(Stage.PLAYER_TAKE_CARD);
+		Card card = deck.dealOneCard();
+		playerCards.add(card);
+		playerState = HandState.addCard(playerState, card);
+		end(event);
 	}
 
 	/* this method deals one card to the dealer (adds 1 card to dealerCards) */
 	public void dealerTakeCard() {
-		dealerCards.add(deck.dealOneCard());
+		RoundStageEvent event = RoundMetrics.begin(Stage.DEALER_TAKE_CARD);
+		Card card = deck.dealOneCard();
+		dealerCards.add(card);
+		dealerState = HandState.addCard(dealerState, card);
+		end(event);
 	}
 
-	/* this method evaluates the hand (parameter) and returns a short ArrayList
-	 * of integers that has the values that the hand can represent.
-	 * the size of the return value is always one or two */
-	public static ArrayList<Integer> possibleHandValues(ArrayList<Card> hand) {
-		/* an ArrayList of integers that has values the hand can represent.
-		 * the return value for this method */
-		ArrayList<Integer> handValues = new ArrayList<>();
-
-		// a boolean that is true if the hand has an ace, false otherwise
-		boolean hasAce = false;
-
-		/* this loops adds up all values in the hand, and assigns hasAce as 
-		 * true if there is an ace in the hand.
-		 * if there is an ace present, the sum will add the ace as the value 1 
-		 * instead of 11 first */
-		int sum = 0;
-		for(Card card: hand) {
-			sum += card.getRank().getValue();
-
-			if(card.getRank().equals(Rank.ACE)) {
-				hasAce = true;
-			}
+	/* this method plays out the dealer's hand: the dealer takes cards until
+	 * dealerShouldTakeCard says to stop */
+	public void playDealerHand() {
+		RoundStageEvent event = RoundMetrics.begin(Stage.DEALER_LOOP);
+		while(dealerShouldTakeCard()) {
+			dealerTakeCard();
 		}
-		handValues.add(sum);
+		end(event);
+	}
 
-		/* if there is an ace in the hand, this will add the ace as the value 
-		 * of 11, and only add it to the list if it is less than, or equals 
-		 * to 21 */
-		if(hasAce) {
-			sum += 10;
+	/* returns an immutable GameState of the hand being played, for a search
+	 * to branch from: the cards left in the deck in the order they will be
+	 * dealt, both hands and the given bet. A lazy shuffle is finished first,
+	 * so this game goes on to deal the same cards the snapshot does. Meant
+	 * for the player's turn; throws IllegalStateException before the first
+	 * hand is dealt */
+	public GameState snapshot(long bet) {
+		if(deck == null || playerCards == null || dealerCards == null) {
+			throw new IllegalStateException("no hand has been dealt");
+		}
+		return GameState.of(rules, deck.remainingCardIds(), playerCards,
+				dealerCards, bet);
+	}
+
+	/* reports the end of a stage with the current hand sizes */
+	private void end(RoundStageEvent event) {
+		RoundMetrics.end(event, HandState.cardCount(playerState),
+				HandState.cardCount(dealerState));
+	}
 
-			if(sum <= 21) {
-				handValues.add(sum);
-			}
+	/* this method evaluates the hand (parameter) and returns a short ArrayList
+	 * of integers that has the values that the hand can represent.
+	 * the size of the return value is always one or two.
+	 * the first value counts every ace as 1; the second value, only present
+	 * when it is 21 or less, counts one ace as 11 */
+	public static ArrayList<Integer> possibleHandValues(List<Card> hand) {
+		int state = HandState.of(hand);
+		ArrayList<Integer> handValues = new ArrayList<>(2);
+		handValues.add(HandState.hardTotal(state));
+		if(HandState.isSoft(state)) {
+			handValues.add(HandState.bestTotal(state));
 		}
 		return handValues;
 	}
@@ -129,28 +284,8 @@ public class BlackjackModel {
 	 *    hand has 2 cards and has value equal to 21)
 	 * 3) BUST (hand's value is over 21)
 	 * 4) NORMAL (if none of the other categories apply) */
-	public static HandAssessment assessHand(ArrayList<Card> hand) {
-		
-		// 4)
-		HandAssessment assessment = HandAssessment.NORMAL;
-		
-		// 1)
-		if(hand.equals(null) || hand.size() < 2) {
-			return HandAssessment.INSUFFICIENT_CARDS;
-
-			// 2)
-		} else if(hand.size() == 2 && possibleHandValues(hand).get(0) == 21
-				|| hand.size() == 2 && possibleHandValues(hand).size() == 2 
-				&& possibleHandValues(hand).get(1) == 21) {
-			return HandAssessment.NATURAL_BLACKJACK;
-
-			// 3)
-		} else if(possibleHandValues(hand).get(0) > 21 || 
-				possibleHandValues(hand).size() == 2 && 
-				possibleHandValues(hand).get(1) > 21) {
-			return HandAssessment.BUST;
-		}
-		return assessment;
+	public static HandAssessment assessHand(List<Card> hand) {
+		return HandState.assess(HandState.of(hand));
 	}
 
 	/* This method assesses the game and returns a GameResult, where the game
@@ -169,71 +304,15 @@ public class BlackjackModel {
 	 * 		5a) PLAYER_WON - player's hand value is greater than dealer's
 	 * 		5b) PLAYER_LOST - player's hand value is less than dealer's
 	 * 		5c) PUSH - player and dealer's hand are the same
+	 *
+	 * The rules above are compiled into a table by Rules, so this is a
+	 * single lookup on the two packed hands
 	 */
 	public GameResult gameAssessment() {
-		
-		// represents the HandAssessment of the player and dealer
-		HandAssessment playerHand = assessHand(playerCards);
-		HandAssessment dealerHand = assessHand(dealerCards);
-		
-		GameResult results = GameResult.PLAYER_LOST;
-
-		// 1)
-		if(playerHand.equals(HandAssessment.NATURAL_BLACKJACK) &&
-				!dealerHand.equals(HandAssessment.NATURAL_BLACKJACK)) {
-			results = GameResult.NATURAL_BLACKJACK;
-
-			// 2)
-		} else if(playerHand.equals(HandAssessment.NATURAL_BLACKJACK) &&
-				dealerHand.equals(HandAssessment.NATURAL_BLACKJACK)) {
-			results = GameResult.PUSH;
-
-			// 3)
-		} else if(playerHand.equals(HandAssessment.BUST)) {
-			results = GameResult.PLAYER_LOST;
-
-			// 4)
-		} else if(!playerHand.equals(HandAssessment.BUST) && 
-				dealerHand.equals(HandAssessment.BUST)) {
-			results = GameResult.PLAYER_WON;
-
-			// 5)
-		} else if(!playerHand.equals(HandAssessment.BUST) &&
-				!dealerHand.equals(HandAssessment.BUST)){
-
-			//these variables represent player and dealer's possible hand values
-			ArrayList<Integer> playerHandVal = possibleHandValues(playerCards);
-			ArrayList<Integer> dealerHandVal = possibleHandValues(dealerCards);
-			
-			/* these variables will store the highest possible hand value for
-			 * the player and dealer */
-			int maxPlayerHandVal = 0;
-			int maxDealerHandVal = 0;
-
-			// assigns maxPlayerHandVal the player's highest possible hand value
-			for(int index = 0; index < playerHandVal.size(); index++){
-				maxPlayerHandVal = playerHandVal.get(index);
-			}
-
-			// assigns maxDealerHandVal the dealer's highest possible hand value
-			for(int index = 0; index < dealerHandVal.size(); index++) {
-				maxDealerHandVal = dealerHandVal.get(index);
-			}
-
-			// 5a)
-			if(maxPlayerHandVal > maxDealerHandVal) {
-				results = GameResult.PLAYER_WON;
-
-				// 5b)
-			} else if(maxPlayerHandVal < maxDealerHandVal) {
-				results = GameResult.PLAYER_LOST;
-				
-				// 5c)
-			} else {
-				results = GameResult.PUSH;
-			}
-		}
-		return results;
+		RoundStageEvent event = RoundMetrics.begin(Stage.GAME_ASSESSMENT);
+		GameResult result = rules.result(playerState, dealerState);
+		end(event);
+		return result;
 	}
 
 	/* this method determines when the dealer will stop taking cards.
@@ -246,45 +325,10 @@ public class BlackjackModel {
 	 * 
 	 * this methods will return false (dealer stops taking cards) if:
 	 * 2a) dealer's hand reaches 18 or more
-	 * 2b) dealer's hand is 17 and not be valued as 7 */
+	 * 2b) dealer's hand is 17 and not be valued as 7
+	 *
+	 * 1b) only applies when the rules say the dealer hits a soft 17 */
 	public boolean dealerShouldTakeCard() {
-		
-		boolean shouldTakeCard = false;
-		
-		// represents a list of the dealer's possible hand values
-		ArrayList<Integer> possibleHandValues = possibleHandValues(dealerCards);
-		
-		// represents the dealer's hand's number of possible hand values 
-		int size = possibleHandValues.size();
-		
-		boolean hasAce = false;
-		for(Card card: dealerCards) {
-			if(card.getRank().equals(Rank.ACE)) {
-				hasAce = true;
-			}
-		}
-		
-		// this loop checks all the possible hand values of the dealer's hand
-		for(int index = 0; index < size; index++) {
-			int handValue = possibleHandValues.get(index);
-			// 1a)
-			if(handValue <= 16) {
-				shouldTakeCard = true;
-				
-				// 2a)
-			} else if(handValue >= 18) {
-				shouldTakeCard = false;
-				
-				// 1b)
-			} else if(hasAce && size == 2 && possibleHandValues.get(0) == 7 
-					&& possibleHandValues.get(1) == 17) {
-				shouldTakeCard = true;
-				
-				// 2b)
-			} else if(size == 1 && possibleHandValues.get(0) == 17) {
-				shouldTakeCard = false;
-			}
-		}
-		return shouldTakeCard;
+		return rules.dealerShouldTakeCard(dealerState);
 	}
 }
@@ -0,0 +1,209 @@
+package blackjack;
+
+import java.util.Arrays;
+
+/*
+ * A ChipLedger holds a player's chips as a count of chips per denomination.
+ *
+ * Amounts are longs and every operation does one division or multiplication
+ * per denomination, so the cost depends only on the number of denominations,
+ * never on the size of the bankroll.
+ *
+ * Denominations are given from largest to smallest, and each one must divide
+ * the one before it, so a chip can always be broken into smaller chips.
+ */
+public class ChipLedger {
+
+	// a stack taller than this is exchanged for larger chips by rebalance
+	public static final int MAX_STACK = 18;
+
+	private final long[] denominations;
+	private final long[] counts;
+
+	/* creates an empty ledger for the given denominations */
+	public ChipLedger(long... denominations) {
+		if(denominations.length == 0) {
+			throw new IllegalArgumentException("a ledger needs at least one "
+					+ "denomination");
+		}
+		for(int i = 0; i < denominations.length; i++) {
+			if(denominations[i] <= 0) {
+				throw new IllegalArgumentException("denomination "
+						+ denominations[i] + " is not positive");
+			}
+			if(i > 0 && (denominations[i] >= denominations[i - 1]
+					|| denominations[i - 1] % denominations[i] != 0)) {
+				throw new IllegalArgumentException("denomination "
+						+ denominations[i] + " does not evenly divide "
+						+ denominations[i - 1]);
+			}
+		}
+		this.denominations = denominations.clone();
+		this.counts = new long[denominations.length];
+	}
+
+	/* creates a copy of another ledger */
+	public ChipLedger(ChipLedger other) {
+		this.denominations = other.denominations;
+		this.counts = other.counts.clone();
+	}
+
+	public int getDenominationCount() {
+		return denominations.length;
+	}
+
+	public long getDenomination(int index) {
+		return denominations[index];
+	}
+
+	/* returns the number of chips of the denomination at index */
+	public long getCount(int index) {
+		return counts[index];
+	}
+
+	/* returns the total value of all the chips */
+	public long getTotal() {
+		long total = 0;
+		for(int i = 0; i < counts.length; i++) {
+			total += counts[i] * denominations[i];
+		}
+		return total;
+	}
+
+	/* replaces this ledger's chips with a copy of other's chips */
+	public void copyFrom(ChipLedger other) {
+		checkSameDenominations(other);
+		System.arraycopy(other.counts, 0, counts, 0, counts.length);
+	}
+
+	/* removes every chip */
+	public void clear() {
+		Arrays.fill(counts, 0);
+	}
+
+	/* replaces the chips with the given amount, using as many large chips as
+	 * possible and then breaking large chips until each smaller stack holds
+	 * a few chips to bet with (13 - 2 * index chips for the stack at index).
+	 * Returns the part of the amount too small for any chip */
+	public long allocate(long amount) {
+		clear();
+		long remainder = addGreedily(amount);
+		for(int i = 1; i < counts.length; i++) {
+			long needed = (13 - 2 * i) - counts[i];
+			if(needed > 0 && counts[i - 1] > 0) {
+				long ratio = denominations[i - 1] / denominations[i];
+				long broken = Math.min(counts[i - 1], (needed + ratio - 1) / ratio);
+				counts[i - 1] -= broken;
+				counts[i] += broken * ratio;
+			}
+		}
+		return remainder;
+	}
+
+	/* adds the given amount using as many large chips as possible and
+	 * returns the part of the amount too small for any chip */
+	public long payOut(long amount) {
+		return addGreedily(amount);
+	}
+
+	/* adds times copies of other's chips, as when a bet is returned (times 1)
+	 * or paid at even money (times 2) */
+	public void add(ChipLedger other, long times) {
+		checkSameDenominations(other);
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] += times * other.counts[i];
+		}
+	}
+
+	/* moves chips worth up to amount into the other ledger, largest chips
+	 * first, without making change. Returns the part of the amount that the
+	 * available chips could not cover */
+	public long take(long amount, ChipLedger into) {
+		checkSameDenominations(into);
+		for(int i = 0; i < counts.length; i++) {
+			long moved = Math.min(counts[i], amount / denominations[i]);
+			counts[i] -= moved;
+			into.counts[i] += moved;
+			amount -= moved * denominations[i];
+		}
+		return amount;
+	}
+
+	/* tidies the stacks with as few exchanges as possible: a stack taller
+	 * than MAX_STACK is traded up for larger chips, and a stack too short to
+	 * make change for the next larger chip gets one larger chip broken into
+	 * it. Returns true if any chips were exchanged */
+	public boolean rebalance() {
+		boolean changed = false;
+		for(int i = counts.length - 1; i > 0; i--) {
+			long ratio = denominations[i - 1] / denominations[i];
+			if(counts[i] > MAX_STACK) {
+				// a stack can only trade up as many chips as it holds
+				long traded = Math.min((counts[i] - MAX_STACK + ratio - 1) / ratio,
+						counts[i] / ratio);
+				if(traded > 0) {
+					counts[i] -= traded * ratio;
+					counts[i - 1] += traded;
+					changed = true;
+				}
+			}
+		}
+		// smallest first, so a broken chip can itself be replaced from above
+		for(int i = counts.length - 1; i > 0; i--) {
+			long ratio = denominations[i - 1] / denominations[i];
+			if(counts[i - 1] > 0 && counts[i] < ratio) {
+				counts[i - 1]--;
+				counts[i] += ratio;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/* pays out a finished round that was played for the chips in bet, which
+	 * have already been taken from this ledger: a natural is paid at the
+	 * rules' blackjack payout and the stacks re-allocated, a win is paid at
+	 * even money, a push returns the bet and a loss keeps nothing. bet itself
+	 * is left as it was */
+	public void settle(ChipLedger bet, GameResult result, Rules rules) {
+		if(result == GameResult.NATURAL_BLACKJACK) {
+			allocate(getTotal() + bet.getTotal()
+					+ rules.getWinnings(bet.getTotal(), result));
+			return;
+		}
+		if(result == GameResult.PLAYER_WON) {
+			add(bet, 2);
+		} else if(result == GameResult.PUSH) {
+			add(bet, 1);
+		}
+		rebalance();
+	}
+
+	private long addGreedily(long amount) {
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] += amount / denominations[i];
+			amount %= denominations[i];
+		}
+		return amount;
+	}
+
+	private void checkSameDenominations(ChipLedger other) {
+		if(other.denominations != denominations
+				&& !Arrays.equals(other.denominations, denominations)) {
+			throw new IllegalArgumentException("the ledgers use different "
+					+ "denominations");
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i < counts.length; i++) {
+			if(i > 0) {
+				text.append(", ");
+			}
+			text.append(counts[i]).append(" x $").append(denominations[i]);
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,254 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import deckOfCards.Card;
+
+/*
+ * A GameState is an immutable snapshot of a round in play: the cards still
+ * to be dealt, both hands and the bet. Every action returns a new GameState
+ * and leaves the one it was called on as it was, so a lookahead solver or a
+ * tree search can keep any state and branch from it as often as it likes.
+ * Forking costs nothing: the state itself is the fork.
+ *
+ * Moving a state on copies nothing either. The cards to come are an index
+ * into one array of card ids that every state from the same deal shares,
+ * and each hand is a list linked from its newest card back to its first,
+ * so a state one card further on shares the whole hand it grew from and
+ * costs one small node. Each node also keeps the packed HandState of its
+ * hand, so a hand is never re-scanned. Only withShuffledRemainder, which
+ * makes a different future, copies the cards to come.
+ *
+ * The player can hit, stand or double down; splitting and surrender are
+ * left to TableModel. When the player's turn ends (standing, doubling or
+ * busting) the dealer's hand is played out straight away, as
+ * BlackjackModel.playDealerHand does.
+ */
+public final class GameState {
+
+	/* one card of a hand, linked to the cards dealt before it. An empty
+	 * hand is null */
+	private static final class Hand {
+		final byte id;
+		final Hand rest;
+		final int state;
+
+		Hand(byte id, Hand rest) {
+			this.id = id;
+			this.rest = rest;
+			this.state = HandState.addValue(stateOf(rest), Card.rankValue(id));
+		}
+	}
+
+	private final Rules rules;
+
+	// the card ids in dealing order; never written once a state has them
+	private final byte[] order;
+
+	// the index in order of the next card to be dealt
+	private final int next;
+
+	private final Hand player;
+	private final Hand dealer;
+	private final long bet;
+	private final boolean playerTurn;
+
+	private GameState(Rules rules, byte[] order, int next, Hand player,
+			Hand dealer, long bet, boolean playerTurn) {
+		this.rules = rules;
+		this.order = order;
+		this.next = next;
+		this.player = player;
+		this.dealer = dealer;
+		this.bet = bet;
+		this.playerTurn = playerTurn;
+	}
+
+	/* deals a new round from the given card ids, in the order they are to
+	 * be dealt: two cards to the dealer and then two to the player, as
+	 * BlackjackModel deals them. The ids are copied once and then shared by
+	 * every state that follows */
+	public static GameState deal(Rules rules, byte[] cardIds, long bet) {
+		byte[] order = cardIds.clone();
+		Hand dealer = new Hand(card(order, 1), new Hand(card(order, 0), null));
+		Hand player = new Hand(card(order, 3), new Hand(card(order, 2), null));
+		return new GameState(rules, order, 4, player, dealer, bet, true);
+	}
+
+	/* a state in the player's turn with the given hands, dealing next from
+	 * remaining, which the state takes over without copying */
+	static GameState of(Rules rules, byte[] remaining, List<Card> playerCards,
+			List<Card> dealerCards, long bet) {
+		return new GameState(rules, remaining, 0, toHand(playerCards),
+				toHand(dealerCards), bet, true);
+	}
+
+	public Rules getRules() {
+		return rules;
+	}
+
+	public long getBet() {
+		return bet;
+	}
+
+	/* returns true until the player stands, doubles down or busts */
+	public boolean isPlayerTurn() {
+		return playerTurn;
+	}
+
+	/* returns the number of cards left to deal */
+	public int cardsRemaining() {
+		return order.length - next;
+	}
+
+	/* returns the packed HandState of the player's hand */
+	public int getPlayerState() {
+		return stateOf(player);
+	}
+
+	/* returns the packed HandState of the dealer's hand */
+	public int getDealerState() {
+		return stateOf(dealer);
+	}
+
+	/* returns the dealer's face-up card, the first one dealt */
+	public Card getDealerUpcard() {
+		Hand first = dealer;
+		while(first.rest != null) {
+			first = first.rest;
+		}
+		return Card.fromId(first.id);
+	}
+
+	/* returns the player's cards in the order they were dealt. The list is
+	 * built on each call and cannot be changed */
+	public List<Card> playerHand() {
+		return toList(player);
+	}
+
+	/* returns the dealer's cards in the order they were dealt, like
+	 * playerHand */
+	public List<Card> dealerHand() {
+		return toList(dealer);
+	}
+
+	/* returns the state after the player takes a card. If that busts the
+	 * player, the dealer's hand is played out too */
+	public GameState hit() {
+		checkPlayerTurn();
+		Hand hit = new Hand(card(order, next), player);
+		if(HandState.hardTotal(hit.state) > 21) {
+			return finish(hit, next + 1, bet);
+		}
+		return new GameState(rules, order, next + 1, hit, dealer, bet, true);
+	}
+
+	/* returns the state after the player stands and the dealer plays */
+	public GameState stand() {
+		checkPlayerTurn();
+		return finish(player, next, bet);
+	}
+
+	/* returns true if the rules let the player double down now, which is
+	 * only on the first two cards */
+	public boolean canDoubleDown() {
+		return playerTurn && rules.isDoubleAllowed()
+				&& HandState.cardCount(stateOf(player)) == 2;
+	}
+
+	/* returns the state after the player doubles the bet, takes exactly one
+	 * more card and the dealer plays. Throws IllegalStateException if
+	 * canDoubleDown is false */
+	public GameState doubleDown() {
+		if(!canDoubleDown()) {
+			throw new IllegalStateException("the player cannot double down now");
+		}
+		return finish(new Hand(card(order, next), player), next + 1, 2 * bet);
+	}
+
+	/* returns a state with the same hands and bet whose cards to come are
+	 * the same cards in a new random order: another possible future. This
+	 * copies the cards to come, once */
+	public GameState withShuffledRemainder(RandomGenerator random) {
+		byte[] shuffled = Arrays.copyOfRange(order, next, order.length);
+		for(int i = shuffled.length; i > 1; i--) {
+			int j = random.nextInt(i);
+			byte temp = shuffled[i - 1];
+			shuffled[i - 1] = shuffled[j];
+			shuffled[j] = temp;
+		}
+		return new GameState(rules, shuffled, 0, player, dealer, bet,
+				playerTurn);
+	}
+
+	/* returns the result of the round. Throws IllegalStateException during
+	 * the player's turn */
+	public GameResult getResult() {
+		if(playerTurn) {
+			throw new IllegalStateException("the round is not over");
+		}
+		return rules.result(stateOf(player), stateOf(dealer));
+	}
+
+	/* returns the player's net winnings in chips for the round, as
+	 * Rules.getWinnings pays them */
+	public long getWinnings() {
+		return rules.getWinnings(bet, getResult());
+	}
+
+	/* ends the player's turn with the given hand and plays the dealer's
+	 * hand out */
+	private GameState finish(Hand finalHand, int from, long finalBet) {
+		Hand played = dealer;
+		int index = from;
+		while(rules.dealerShouldTakeCard(stateOf(played))) {
+			played = new Hand(card(order, index++), played);
+		}
+		return new GameState(rules, order, index, finalHand, played, finalBet,
+				false);
+	}
+
+	private void checkPlayerTurn() {
+		if(!playerTurn) {
+			throw new IllegalStateException("the player's turn is over");
+		}
+	}
+
+	private static byte card(byte[] order, int index) {
+		if(index >= order.length) {
+			throw new IndexOutOfBoundsException("no cards left in the deck");
+		}
+		return order[index];
+	}
+
+	private static int stateOf(Hand hand) {
+		return hand == null ? HandState.EMPTY : hand.state;
+	}
+
+	private static Hand toHand(List<Card> cards) {
+		Hand hand = null;
+		for(int i = 0; i < cards.size(); i++) {
+			hand = new Hand(cards.get(i).getId(), hand);
+		}
+		return hand;
+	}
+
+	private static List<Card> toList(Hand hand) {
+		ArrayList<Card> cards = new ArrayList<>(HandState.cardCount(stateOf(hand)));
+		for(Hand card = hand; card != null; card = card.rest) {
+			cards.add(Card.fromId(card.id));
+		}
+		Collections.reverse(cards);
+		return Collections.unmodifiableList(cards);
+	}
+
+	@Override
+	public String toString() {
+		return "player " + playerHand() + ", dealer " + dealerHand() + ", bet "
+				+ bet + (playerTurn ? ", player's turn" : ", " + getResult());
+	}
+}
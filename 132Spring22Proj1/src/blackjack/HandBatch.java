@@ -0,0 +1,177 @@
+package blackjack;
+
+import java.util.List;
+
+import deckOfCards.Card;
+
+/*
+ * HandBatch evaluates many hands at once, for bulk simulation. It gives the
+ * same answers as BlackjackModel.possibleHandValues and assessHand, but for
+ * n hands per call and without touching a single Card or ArrayList.
+ *
+ * The hands are passed as a packed array of card values laid out card by
+ * card: values[card * n + hand] is the Blackjack value (1 for an ace, 10 for
+ * tens and face cards) of that card of that hand, or 0 once the hand has no
+ * more cards. Keeping each card position contiguous means every pass below
+ * is a simple loop over n hands with no branches in its body, streaming
+ * through the arrays in order.
+ *
+ * The results go into primitive arrays of at least n elements: the best
+ * total of each hand (the last element of possibleHandValues), whether it is
+ * soft (1) or not (0), so the hard total is best - 10 * soft, and the
+ * ordinal of its HandAssessment. While the cards are added up, totals holds
+ * each hand's hard total, ace count and card count packed into one int, so
+ * a call allocates nothing and the inner loop updates a single array.
+ *
+ * When the JVM runs with the jdk.incubator.vector module (started with
+ * --add-modules jdk.incubator.vector), evaluate hands the work to
+ * VectorHandBatch, which adds up a whole vector of hands per instruction.
+ * That class is compiled separately, from the vector source folder, and is
+ * looked up by reflection, so this class still builds and runs without the
+ * module and falls back to the plain loops below.
+ */
+public final class HandBatch {
+
+	private static final int INSUFFICIENT_CARDS =
+			HandAssessment.INSUFFICIENT_CARDS.ordinal();
+	private static final int BUST = HandAssessment.BUST.ordinal();
+	private static final int NATURAL_BLACKJACK =
+			HandAssessment.NATURAL_BLACKJACK.ordinal();
+	private static final int NORMAL = HandAssessment.NORMAL.ordinal();
+
+	// the fields packed into totals while the cards are added up
+	private static final int ACE_SHIFT = 8;
+	private static final int COUNT_SHIFT = 16;
+	private static final int FIELD_MASK = 0xFF;
+
+	// 25 tens is the largest hard total that fits in a field
+	public static final int MAX_CARDS = 25;
+
+	/* what a card of each value adds to the packed fields: its value, one
+	 * ace if it is an ace and one card. Value 0 is padding and adds nothing */
+	private static final int[] CARD_FIELDS = new int[11];
+
+	static {
+		for(int value = 1; value <= 10; value++) {
+			CARD_FIELDS[value] = value | (value == 1 ? 1 << ACE_SHIFT : 0)
+					| 1 << COUNT_SHIFT;
+		}
+	}
+
+	/* evaluates hands from the packed values, as evaluate does, once the
+	 * arguments have been checked */
+	interface Kernel {
+		void evaluate(byte[] values, int n, int maxCards, int[] totals,
+				byte[] soft, byte[] assessments);
+	}
+
+	// the vector implementation, or null if the JVM does not have it
+	private static final Kernel VECTOR = loadVectorKernel();
+
+	private HandBatch() {
+	}
+
+	/* creates a VectorHandBatch if the vector module is in the boot layer
+	 * and the class was built. Returns null otherwise */
+	private static Kernel loadVectorKernel() {
+		if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+			return null;
+		}
+		try {
+			return (Kernel) Class.forName("blackjack.VectorHandBatch")
+					.getDeclaredConstructor().newInstance();
+		} catch(ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/* returns true if evaluate uses the vector implementation */
+	public static boolean isVectorized() {
+		return VECTOR != null;
+	}
+
+	/* evaluates n hands of up to maxCards cards each from the packed values
+	 * and writes the best totals, soft flags and HandAssessment ordinals.
+	 * maxCards may be at most 25, so a hard total fits in a byte */
+	public static void evaluate(byte[] values, int n, int maxCards,
+			int[] totals, byte[] soft, byte[] assessments) {
+		check(values, n, maxCards, totals, soft, assessments);
+		if(VECTOR != null) {
+			VECTOR.evaluate(values, n, maxCards, totals, soft, assessments);
+		} else {
+			evaluate(values, n, maxCards, 0, n, totals, soft, assessments);
+		}
+	}
+
+	/* like evaluate, but always with the plain loops, even when the vector
+	 * implementation is available */
+	public static void evaluateScalar(byte[] values, int n, int maxCards,
+			int[] totals, byte[] soft, byte[] assessments) {
+		check(values, n, maxCards, totals, soft, assessments);
+		evaluate(values, n, maxCards, 0, n, totals, soft, assessments);
+	}
+
+	private static void check(byte[] values, int n, int maxCards,
+			int[] totals, byte[] soft, byte[] assessments) {
+		if(maxCards > MAX_CARDS) {
+			throw new IllegalArgumentException("at most " + MAX_CARDS
+					+ " cards per hand, not " + maxCards);
+		}
+		if(values.length < n * maxCards || totals.length < n
+				|| soft.length < n || assessments.length < n) {
+			throw new IllegalArgumentException("arrays too short for " + n
+					+ " hands of " + maxCards + " cards");
+		}
+	}
+
+	/* evaluates hands from up to but not including to, of the n hands laid
+	 * out in values. VectorHandBatch uses this for the hands left over after
+	 * its last full vector */
+	static void evaluate(byte[] values, int n, int maxCards, int from, int to,
+			int[] totals, byte[] soft, byte[] assessments) {
+		// the hard total, the number of aces and the number of cards build
+		// up in one int per hand
+		for(int hand = from; hand < to; hand++) {
+			totals[hand] = 0;
+		}
+		for(int card = 0; card < maxCards; card++) {
+			int offset = card * n;
+			for(int hand = from; hand < to; hand++) {
+				totals[hand] += CARD_FIELDS[values[offset + hand]];
+			}
+		}
+		for(int hand = from; hand < to; hand++) {
+			int packed = totals[hand];
+			int hard = packed & FIELD_MASK;
+			int count = packed >>> COUNT_SHIFT;
+			// an ace counts as 11 only while the hard total is 11 or less
+			int isSoft = -(packed >> ACE_SHIFT & FIELD_MASK) >>> 31
+					& (hard - 12) >>> 31;
+			int best = hard + 10 * isSoft;
+			totals[hand] = best;
+			soft[hand] = (byte) isSoft;
+			assessments[hand] = (byte) (count < 2 ? INSUFFICIENT_CARDS
+					: count == 2 && best == 21 ? NATURAL_BLACKJACK
+					: hard > 21 ? BUST : NORMAL);
+		}
+	}
+
+	/* packs the hands into the card by card layout evaluate reads. Hands
+	 * with more than maxCards cards are rejected */
+	public static byte[] pack(List<? extends List<Card>> hands, int maxCards) {
+		int n = hands.size();
+		byte[] values = new byte[n * maxCards];
+		for(int hand = 0; hand < n; hand++) {
+			List<Card> cards = hands.get(hand);
+			if(cards.size() > maxCards) {
+				throw new IllegalArgumentException("hand " + hand + " has "
+						+ cards.size() + " cards, more than " + maxCards);
+			}
+			for(int card = 0; card < cards.size(); card++) {
+				values[card * n + hand] =
+						(byte) Card.rankValue(cards.get(card).getId());
+			}
+		}
+		return values;
+	}
+}
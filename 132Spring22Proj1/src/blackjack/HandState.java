@@ -0,0 +1,106 @@
+package blackjack;
+
+import java.util.List;
+
+import deckOfCards.Card;
+
+/*
+ * HandState packs everything the game needs to know about a hand into one
+ * int, so a hand can be updated in O(1) as cards arrive and evaluated without
+ * allocating or re-scanning the cards.
+ *
+ * Layout of the packed value:
+ *   bits  0-15  the hard total (every ace counted as 1)
+ *   bit  16     set if the hand holds at least one ace
+ *   bits 17-31  the number of cards in the hand
+ *
+ * A hand is "soft" when it holds an ace that can be counted as 11 without
+ * going over 21. This matches the two-value list produced by
+ * BlackjackModel.possibleHandValues.
+ */
+public final class HandState {
+
+	// the state of a hand with no cards in it
+	public static final int EMPTY = 0;
+
+	private static final int TOTAL_MASK = 0xFFFF;
+	private static final int ACE_BIT = 1 << 16;
+	private static final int COUNT_SHIFT = 17;
+	private static final int ONE_CARD = 1 << COUNT_SHIFT;
+
+	private HandState() {
+	}
+
+	/* returns the state of the hand after adding a card with the given
+	 * Blackjack value (1 for an ace, 10 for face cards) */
+	public static int addValue(int state, int value) {
+		state += ONE_CARD + value;
+		if(value == 1) {
+			state |= ACE_BIT;
+		}
+		return state;
+	}
+
+	/* returns the state of the hand after adding the card */
+	public static int addCard(int state, Card card) {
+		return addValue(state, Card.rankValue(card.getId()));
+	}
+
+	/* builds the state of a whole hand. A null hand is treated as empty */
+	public static int of(List<Card> hand) {
+		int state = EMPTY;
+		if(hand != null) {
+			for(int i = 0; i < hand.size(); i++) {
+				state = addCard(state, hand.get(i));
+			}
+		}
+		return state;
+	}
+
+	/* returns the total with every ace counted as 1 */
+	public static int hardTotal(int state) {
+		return state & TOTAL_MASK;
+	}
+
+	/* returns true if the hand holds at least one ace */
+	public static boolean hasAce(int state) {
+		return (state & ACE_BIT) != 0;
+	}
+
+	/* returns true if an ace can be counted as 11 without busting */
+	public static boolean isSoft(int state) {
+		return (state & ACE_BIT) != 0 && (state & TOTAL_MASK) <= 11;
+	}
+
+	/* returns the number of cards in the hand */
+	public static int cardCount(int state) {
+		return state >>> COUNT_SHIFT;
+	}
+
+	/* returns the highest value the hand can represent; this is the last
+	 * element of possibleHandValues */
+	public static int bestTotal(int state) {
+		int hard = state & TOTAL_MASK;
+		return isSoft(state) ? hard + 10 : hard;
+	}
+
+	/* the packed equivalent of BlackjackModel.assessHand */
+	public static HandAssessment assess(int state) {
+		int count = cardCount(state);
+		if(count < 2) {
+			return HandAssessment.INSUFFICIENT_CARDS;
+		} else if(count == 2 && bestTotal(state) == 21) {
+			return HandAssessment.NATURAL_BLACKJACK;
+		} else if(hardTotal(state) > 21) {
+			return HandAssessment.BUST;
+		}
+		return HandAssessment.NORMAL;
+	}
+
+	/* the packed equivalent of BlackjackModel.dealerShouldTakeCard: the
+	 * dealer takes a card on 16 or less and on a soft 17 */
+	public static boolean dealerShouldTakeCard(int state) {
+		int best = bestTotal(state);
+		return best <= 16 || best == 17 && isSoft(state);
+	}
+}
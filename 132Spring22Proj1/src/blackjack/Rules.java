@@ -0,0 +1,290 @@
+package blackjack;
+
+import deckOfCards.Shoe;
+
+/*
+ * Rules describes one set of house rules: how many decks are dealt, whether
+ * the dealer hits a soft 17, what a natural blackjack pays, and whether the
+ * player may double, split or surrender. Rules are immutable; start from
+ * DEFAULT, which is the game BlackjackModel has always played, and change
+ * one rule at a time with the with methods.
+ *
+ * Creating a Rules compiles it into lookup tables indexed by a dense key
+ * built from a packed HandState (hard total, ace flag and whether the hand
+ * has exactly two cards), so the dealer's decision and the settlement of a
+ * hand are single array reads.
+ *
+ * Payouts are kept as whole "units" so that they add up exactly: a bet is
+ * worth getPayoutScale() units, so with 3:2 blackjacks a win is 4 units, a
+ * natural 6, a push 0, a loss -4 and a surrender -2.
+ */
+public final class Rules {
+
+	// hard totals above this are all bust, so they share one key
+	private static final int MAX_HARD = 31;
+	private static final int ACE_KEY = 1;
+	private static final int TWO_CARD_KEY = 64;
+	private static final int KEYS = 128;
+
+	// hand classes: best totals 0 to 21, then bust and natural blackjack
+	private static final int BUST = 22;
+	private static final int NATURAL = 23;
+	private static final int CLASSES = 24;
+
+	private static final GameResult[] GAME_RESULTS = GameResult.values();
+
+	// the class of each key and the GameResult ordinal of each pair of
+	// classes; neither depends on the rules
+	private static final byte[] HAND_CLASS = new byte[KEYS];
+	private static final byte[] RESULTS = new byte[CLASSES * CLASSES];
+
+	static {
+		for(int key = 0; key < KEYS; key++) {
+			int best = bestTotal(key);
+			if(hardTotal(key) > 21) {
+				HAND_CLASS[key] = BUST;
+			} else if((key & TWO_CARD_KEY) != 0 && best == 21) {
+				HAND_CLASS[key] = NATURAL;
+			} else {
+				HAND_CLASS[key] = (byte) best;
+			}
+		}
+		for(int player = 0; player < CLASSES; player++) {
+			for(int dealer = 0; dealer < CLASSES; dealer++) {
+				RESULTS[player * CLASSES + dealer] =
+						(byte) compare(player, dealer).ordinal();
+			}
+		}
+	}
+
+	// the single deck, hit soft 17, 3:2 game without double, split or
+	// surrender; declared after the shared tables it is compiled from
+	public static final Rules DEFAULT = new Rules(1, true, 3, 2, false, false,
+			false);
+
+	private final int numberOfDecks;
+	private final boolean dealerHitsSoft17;
+	private final int blackjackNumerator;
+	private final int blackjackDenominator;
+	private final boolean doubleAllowed;
+	private final boolean splitAllowed;
+	private final boolean surrenderAllowed;
+
+	// the compiled tables
+	private final boolean[] dealerHits = new boolean[KEYS];
+	private final int[] payoutUnits = new int[CLASSES * CLASSES];
+	private final int[] resultUnits = new int[GAME_RESULTS.length];
+	private final int payoutScale;
+
+	/* creates a set of rules; most callers should start from DEFAULT and use
+	 * the with methods instead. A natural pays blackjackNumerator to
+	 * blackjackDenominator */
+	public Rules(int numberOfDecks, boolean dealerHitsSoft17,
+			int blackjackNumerator, int blackjackDenominator,
+			boolean doubleAllowed, boolean splitAllowed,
+			boolean surrenderAllowed) {
+		if(numberOfDecks < 1) {
+			throw new IllegalArgumentException("a game needs at least one deck");
+		}
+		if(blackjackNumerator < 0 || blackjackDenominator < 1) {
+			throw new IllegalArgumentException("cannot pay blackjack at "
+					+ blackjackNumerator + ":" + blackjackDenominator);
+		}
+		this.numberOfDecks = numberOfDecks;
+		this.dealerHitsSoft17 = dealerHitsSoft17;
+		this.blackjackNumerator = blackjackNumerator;
+		this.blackjackDenominator = blackjackDenominator;
+		this.doubleAllowed = doubleAllowed;
+		this.splitAllowed = splitAllowed;
+		this.surrenderAllowed = surrenderAllowed;
+
+		for(int key = 0; key < KEYS; key++) {
+			int best = bestTotal(key);
+			boolean soft = best != hardTotal(key);
+			dealerHits[key] = best <= 16 || best == 17 && soft && dealerHitsSoft17;
+		}
+		payoutScale = 2 * blackjackDenominator;
+		resultUnits[GameResult.NATURAL_BLACKJACK.ordinal()] = 2 * blackjackNumerator;
+		resultUnits[GameResult.PLAYER_WON.ordinal()] = payoutScale;
+		resultUnits[GameResult.PUSH.ordinal()] = 0;
+		resultUnits[GameResult.PLAYER_LOST.ordinal()] = -payoutScale;
+		for(int i = 0; i < payoutUnits.length; i++) {
+			payoutUnits[i] = resultUnits[RESULTS[i]];
+		}
+	}
+
+	public Rules withNumberOfDecks(int decks) {
+		return new Rules(decks, dealerHitsSoft17, blackjackNumerator,
+				blackjackDenominator, doubleAllowed, splitAllowed, surrenderAllowed);
+	}
+
+	public Rules withDealerHitsSoft17(boolean hits) {
+		return new Rules(numberOfDecks, hits, blackjackNumerator,
+				blackjackDenominator, doubleAllowed, splitAllowed, surrenderAllowed);
+	}
+
+	/* returns these rules with naturals paid numerator to denominator */
+	public Rules withBlackjackPayout(int numerator, int denominator) {
+		return new Rules(numberOfDecks, dealerHitsSoft17, numerator,
+				denominator, doubleAllowed, splitAllowed, surrenderAllowed);
+	}
+
+	public Rules withDoubleAllowed(boolean allowed) {
+		return new Rules(numberOfDecks, dealerHitsSoft17, blackjackNumerator,
+				blackjackDenominator, allowed, splitAllowed, surrenderAllowed);
+	}
+
+	public Rules withSplitAllowed(boolean allowed) {
+		return new Rules(numberOfDecks, dealerHitsSoft17, blackjackNumerator,
+				blackjackDenominator, doubleAllowed, allowed, surrenderAllowed);
+	}
+
+	public Rules withSurrenderAllowed(boolean allowed) {
+		return new Rules(numberOfDecks, dealerHitsSoft17, blackjackNumerator,
+				blackjackDenominator, doubleAllowed, splitAllowed, allowed);
+	}
+
+	public int getNumberOfDecks() {
+		return numberOfDecks;
+	}
+
+	public boolean dealerHitsSoft17() {
+		return dealerHitsSoft17;
+	}
+
+	public int getBlackjackNumerator() {
+		return blackjackNumerator;
+	}
+
+	public int getBlackjackDenominator() {
+		return blackjackDenominator;
+	}
+
+	public boolean isDoubleAllowed() {
+		return doubleAllowed;
+	}
+
+	public boolean isSplitAllowed() {
+		return splitAllowed;
+	}
+
+	public boolean isSurrenderAllowed() {
+		return surrenderAllowed;
+	}
+
+	/* returns a new deck to deal a game under these rules from. A single
+	 * deck game deals every hand from a fresh Deck, as the original game
+	 * does, so this returns null for one deck and a Shoe otherwise */
+	public Shoe newShoe() {
+		return numberOfDecks == 1 ? null : new Shoe(numberOfDecks);
+	}
+
+	/* returns true if the dealer takes another card on the packed HandState */
+	public boolean dealerShouldTakeCard(int dealerState) {
+		return dealerHits[key(dealerState)];
+	}
+
+	/* returns the result of a finished round from the two packed hands. This
+	 * gives the same answer as BlackjackModel.gameAssessment, whatever the
+	 * rules */
+	public GameResult result(int playerState, int dealerState) {
+		return GAME_RESULTS[RESULTS[HAND_CLASS[key(playerState)] * CLASSES
+				+ HAND_CLASS[key(dealerState)]]];
+	}
+
+	/* returns the result of a hand made by splitting a pair, which can
+	 * reach 21 on two cards but is never a natural blackjack */
+	public GameResult resultAfterSplit(int playerState, int dealerState) {
+		return GAME_RESULTS[RESULTS[HAND_CLASS[key(playerState) & ~TWO_CARD_KEY]
+				* CLASSES + HAND_CLASS[key(dealerState)]]];
+	}
+
+	/* returns the player's net winnings for a finished round in payout
+	 * units, as one table read */
+	public int getPayoutUnits(int playerState, int dealerState) {
+		return payoutUnits[HAND_CLASS[key(playerState)] * CLASSES
+				+ HAND_CLASS[key(dealerState)]];
+	}
+
+	/* returns the player's net winnings for a result in payout units */
+	public int getPayoutUnits(GameResult result) {
+		return resultUnits[result.ordinal()];
+	}
+
+	/* returns what a surrendered hand costs in payout units: half the bet */
+	public int getSurrenderUnits() {
+		return -blackjackDenominator;
+	}
+
+	/* returns the number of payout units a bet of one is worth */
+	public int getPayoutScale() {
+		return payoutScale;
+	}
+
+	/* returns the player's net winnings per unit bet for a result */
+	public double getPayout(GameResult result) {
+		return (double) resultUnits[result.ordinal()] / payoutScale;
+	}
+
+	/* returns the player's net winnings in chips for a bet, rounding a
+	 * fractional blackjack payout down the way the table pays it */
+	public long getWinnings(long bet, GameResult result) {
+		return toChips(bet, resultUnits[result.ordinal()]);
+	}
+
+	/* converts a number of payout units per unit bet into chips for a bet,
+	 * rounding towards zero */
+	public long toChips(long bet, int units) {
+		return bet / payoutScale * units + bet % payoutScale * units / payoutScale;
+	}
+
+	@Override
+	public String toString() {
+		return numberOfDecks + (numberOfDecks == 1 ? " deck, " : " decks, ")
+				+ (dealerHitsSoft17 ? "H17" : "S17") + ", blackjack pays "
+				+ blackjackNumerator + ":" + blackjackDenominator
+				+ (doubleAllowed ? ", double" : "")
+				+ (splitAllowed ? ", split" : "")
+				+ (surrenderAllowed ? ", surrender" : "");
+	}
+
+	/* returns the dense table key of a packed HandState */
+	private static int key(int state) {
+		int key = Math.min(HandState.hardTotal(state), MAX_HARD) << 1;
+		if(HandState.hasAce(state)) {
+			key |= ACE_KEY;
+		}
+		if(HandState.cardCount(state) == 2) {
+			key |= TWO_CARD_KEY;
+		}
+		return key;
+	}
+
+	private static int hardTotal(int key) {
+		return (key & (TWO_CARD_KEY - 1)) >> 1;
+	}
+
+	private static int bestTotal(int key) {
+		int hard = hardTotal(key);
+		return (key & ACE_KEY) != 0 && hard <= 11 ? hard + 10 : hard;
+	}
+
+	/* the rules of BlackjackModel.gameAssessment, applied to hand classes */
+	private static GameResult compare(int player, int dealer) {
+		if(player == NATURAL) {
+			return dealer == NATURAL ? GameResult.PUSH
+					: GameResult.NATURAL_BLACKJACK;
+		} else if(player == BUST) {
+			return GameResult.PLAYER_LOST;
+		} else if(dealer == BUST) {
+			return GameResult.PLAYER_WON;
+		}
+		int dealerTotal = dealer == NATURAL ? 21 : dealer;
+		if(player > dealerTotal) {
+			return GameResult.PLAYER_WON;
+		} else if(player < dealerTotal) {
+			return GameResult.PLAYER_LOST;
+		}
+		return GameResult.PUSH;
+	}
+}
@@ -0,0 +1,437 @@
+package blackjack;
+
+import java.util.random.RandomGenerator;
+
+import deckOfCards.Card;
+import deckOfCards.Shoe;
+
+/*
+ * A TableModel plays one dealer against up to MAX_SEATS seats, where each
+ * seat can split its hand into up to MAX_HANDS_PER_SEAT hands.
+ *
+ * Instead of an ArrayList of Cards per hand, every hand at the table lives
+ * in a handful of primitive arrays indexed by hand slot (seat *
+ * MAX_HANDS_PER_SEAT + hand): the card ids, the packed HandState (total, ace
+ * flag and card count), the bet, the hand's flags and its settlement. A
+ * whole round therefore touches a few small arrays, the cards are dealt to
+ * every seat in one pass and the table is settled in another.
+ *
+ * A round goes startRound, then hit, stand, doubleDown, split or surrender
+ * for the current hand while isPlayerTurn, then finishRound. Hands that
+ * reach 21 or bust are finished automatically. Double, split and surrender
+ * are only allowed when the table's Rules allow them. As in BlackjackModel,
+ * the dealer does not peek for a natural.
+ */
+public class TableModel {
+
+	public static final int MAX_SEATS = 7;
+	public static final int MAX_HANDS_PER_SEAT = 4;
+
+	// 21 aces and one more card is the longest hand possible
+	public static final int MAX_CARDS_PER_HAND = 22;
+
+	private static final int HANDS = MAX_SEATS * MAX_HANDS_PER_SEAT;
+
+	// bits of flags[]
+	private static final byte DONE = 1;
+	private static final byte DOUBLED = 2;
+	private static final byte SURRENDERED = 4;
+	private static final byte SPLIT = 8;
+
+	private static final GameResult[] RESULTS = GameResult.values();
+
+	private final Rules rules;
+	private final int seats;
+	private final Shoe shoe;
+	private RandomGenerator random;
+
+	// the cards dealt since the round started, all still on the table
+	private int dealtThisRound;
+
+	// the hands, one slot each
+	private final byte[] cards = new byte[HANDS * MAX_CARDS_PER_HAND];
+	private final int[] states = new int[HANDS];
+	private final long[] bets = new long[HANDS];
+	private final byte[] flags = new byte[HANDS];
+	private final byte[] results = new byte[HANDS];
+	private final long[] winnings = new long[HANDS];
+
+	// the number of hands each seat is playing; 0 if it sat the round out
+	private final byte[] handCounts = new byte[MAX_SEATS];
+
+	private final byte[] dealerCards = new byte[MAX_CARDS_PER_HAND];
+	private int dealerState;
+
+	// the hand being played, or seat == seats once every hand is done
+	private int seat;
+	private int hand;
+	private boolean settled = true;
+
+	/* creates a table of the given number of seats dealing from a shoe of
+	 * the rules' number of decks */
+	public TableModel(Rules rules, int seats) {
+		this(rules, seats, new Shoe(rules.getNumberOfDecks()));
+	}
+
+	/* creates a table of the given number of seats dealing from the given
+	 * shoe, which is reshuffled when its cut card has come out */
+	public TableModel(Rules rules, int seats, Shoe shoe) {
+		if(seats < 1 || seats > MAX_SEATS) {
+			throw new IllegalArgumentException("a table has 1 to " + MAX_SEATS
+					+ " seats, not " + seats);
+		}
+		this.rules = rules;
+		this.seats = seats;
+		this.shoe = shoe;
+		seat = seats;
+	}
+
+	public Rules getRules() {
+		return rules;
+	}
+
+	public int getSeats() {
+		return seats;
+	}
+
+	/* starts a round with the given bet for each seat (0 to sit the round
+	 * out) and deals two cards to every playing seat and to the dealer */
+	public void startRound(long[] seatBets, RandomGenerator random) {
+		if(!settled) {
+			throw new IllegalStateException("the last round has not finished");
+		}
+		if(seatBets.length != seats) {
+			throw new IllegalArgumentException("expected " + seats + " bets, got "
+					+ seatBets.length);
+		}
+		this.random = random;
+		if(shoe.needsShuffle()) {
+			shoe.shuffle(random);
+		}
+		dealtThisRound = 0;
+		for(int s = 0; s < seats; s++) {
+			if(seatBets[s] < 0) {
+				throw new IllegalArgumentException("seat " + s + " bet "
+						+ seatBets[s]);
+			}
+			int slot = s * MAX_HANDS_PER_SEAT;
+			handCounts[s] = (byte) (seatBets[s] > 0 ? 1 : 0);
+			states[slot] = HandState.EMPTY;
+			bets[slot] = seatBets[s];
+			flags[slot] = 0;
+		}
+		dealerState = HandState.EMPTY;
+
+		// one card to each seat and the dealer, then a second round
+		for(int card = 0; card < 2; card++) {
+			for(int s = 0; s < seats; s++) {
+				if(handCounts[s] > 0) {
+					deal(s * MAX_HANDS_PER_SEAT);
+				}
+			}
+			dealDealer();
+		}
+		settled = false;
+		seat = 0;
+		hand = 0;
+		skipFinishedHands();
+	}
+
+	/* returns true while a player hand is waiting for a decision */
+	public boolean isPlayerTurn() {
+		return seat < seats;
+	}
+
+	/* returns the seat whose hand is being played */
+	public int getCurrentSeat() {
+		return seat;
+	}
+
+	/* returns which of the current seat's hands is being played */
+	public int getCurrentHand() {
+		return hand;
+	}
+
+	/* deals a card to the current hand */
+	public void hit() {
+		int slot = currentSlot();
+		deal(slot);
+		if(HandState.bestTotal(states[slot]) >= 21) {
+			finishHand(slot);
+		}
+	}
+
+	/* stands on the current hand */
+	public void stand() {
+		finishHand(currentSlot());
+	}
+
+	/* doubles the bet on the current hand, which then gets one more card */
+	public void doubleDown() {
+		if(!canDouble()) {
+			throw new IllegalStateException("cannot double this hand");
+		}
+		int slot = currentSlot();
+		bets[slot] *= 2;
+		flags[slot] |= DOUBLED;
+		deal(slot);
+		finishHand(slot);
+	}
+
+	/* splits the current pair into two hands with the same bet and deals
+	 * each a second card. Split aces get one card each and are finished */
+	public void split() {
+		if(!canSplit()) {
+			throw new IllegalStateException("cannot split this hand");
+		}
+		int slot = currentSlot();
+		int added = seat * MAX_HANDS_PER_SEAT + handCounts[seat]++;
+		int second = cards[slot * MAX_CARDS_PER_HAND + 1];
+		cards[added * MAX_CARDS_PER_HAND] = (byte) second;
+		states[added] = HandState.addValue(HandState.EMPTY, Card.rankValue(second));
+		states[slot] = HandState.addValue(HandState.EMPTY,
+				Card.rankValue(cards[slot * MAX_CARDS_PER_HAND]));
+		bets[added] = bets[slot];
+		flags[slot] = SPLIT;
+		flags[added] = SPLIT;
+		deal(slot);
+		deal(added);
+		if(Card.rankValue(second) == 1) {
+			flags[added] |= DONE;
+			finishHand(slot);
+		} else if(HandState.bestTotal(states[slot]) == 21) {
+			finishHand(slot);
+		}
+	}
+
+	/* gives up the current hand for half of its bet */
+	public void surrender() {
+		if(!canSurrender()) {
+			throw new IllegalStateException("cannot surrender this hand");
+		}
+		int slot = currentSlot();
+		flags[slot] |= SURRENDERED;
+		finishHand(slot);
+	}
+
+	/* returns true if the current hand may double: it has two cards and is
+	 * not a split ace */
+	public boolean canDouble() {
+		return rules.isDoubleAllowed() && isPlayerTurn()
+				&& HandState.cardCount(states[currentSlot()]) == 2;
+	}
+
+	/* returns true if the current hand is a pair of the same value and the
+	 * seat has room for another hand */
+	public boolean canSplit() {
+		if(!rules.isSplitAllowed() || !isPlayerTurn()
+				|| handCounts[seat] == MAX_HANDS_PER_SEAT) {
+			return false;
+		}
+		int slot = currentSlot();
+		int first = slot * MAX_CARDS_PER_HAND;
+		return HandState.cardCount(states[slot]) == 2
+				&& Card.rankValue(cards[first]) == Card.rankValue(cards[first + 1]);
+	}
+
+	/* returns true if the current hand may surrender: it is the seat's first
+	 * two cards */
+	public boolean canSurrender() {
+		return rules.isSurrenderAllowed() && isPlayerTurn()
+				&& handCounts[seat] == 1
+				&& HandState.cardCount(states[currentSlot()]) == 2;
+	}
+
+	/* plays the dealer's hand, if any hand is still live, and settles every
+	 * hand at the table in one pass */
+	public void finishRound() {
+		if(settled) {
+			throw new IllegalStateException("no round is in progress");
+		}
+		if(isPlayerTurn()) {
+			throw new IllegalStateException("seat " + seat + " has not finished");
+		}
+		if(anyHandLive()) {
+			while(rules.dealerShouldTakeCard(dealerState)) {
+				dealDealer();
+			}
+		}
+		for(int s = 0; s < seats; s++) {
+			for(int h = 0; h < handCounts[s]; h++) {
+				int slot = s * MAX_HANDS_PER_SEAT + h;
+				GameResult result;
+				if((flags[slot] & SURRENDERED) != 0) {
+					result = GameResult.PLAYER_LOST;
+					winnings[slot] = rules.toChips(bets[slot],
+							rules.getSurrenderUnits());
+				} else {
+					result = (flags[slot] & SPLIT) != 0
+							? rules.resultAfterSplit(states[slot], dealerState)
+							: rules.result(states[slot], dealerState);
+					winnings[slot] = rules.getWinnings(bets[slot], result);
+				}
+				results[slot] = (byte) result.ordinal();
+			}
+		}
+		settled = true;
+	}
+
+	/* returns the number of hands the seat played this round: 0 if it sat
+	 * out, more than 1 if it split */
+	public int getHandCount(int seat) {
+		return handCounts[seat];
+	}
+
+	/* returns the packed HandState of one of a seat's hands */
+	public int getHandState(int seat, int hand) {
+		return states[slot(seat, hand)];
+	}
+
+	/* returns the index-th card of one of a seat's hands */
+	public Card getCard(int seat, int hand, int index) {
+		int slot = slot(seat, hand);
+		if(index < 0 || index >= HandState.cardCount(states[slot])) {
+			throw new IndexOutOfBoundsException("card " + index);
+		}
+		return Card.fromId(cards[slot * MAX_CARDS_PER_HAND + index]);
+	}
+
+	/* returns the amount bet on one of a seat's hands, including a double */
+	public long getBet(int seat, int hand) {
+		return bets[slot(seat, hand)];
+	}
+
+	public boolean isDoubled(int seat, int hand) {
+		return (flags[slot(seat, hand)] & DOUBLED) != 0;
+	}
+
+	public boolean isSurrendered(int seat, int hand) {
+		return (flags[slot(seat, hand)] & SURRENDERED) != 0;
+	}
+
+	/* returns the result of one of a seat's hands once the round is over */
+	public GameResult getResult(int seat, int hand) {
+		requireSettled();
+		return RESULTS[results[slot(seat, hand)]];
+	}
+
+	/* returns the net winnings of one of a seat's hands once the round is
+	 * over; negative if the hand lost */
+	public long getWinnings(int seat, int hand) {
+		requireSettled();
+		return winnings[slot(seat, hand)];
+	}
+
+	/* returns the net winnings of a seat over all of its hands */
+	public long getSeatWinnings(int seat) {
+		requireSettled();
+		long total = 0;
+		for(int h = 0; h < handCounts[seat]; h++) {
+			total += winnings[seat * MAX_HANDS_PER_SEAT + h];
+		}
+		return total;
+	}
+
+	/* returns the packed HandState of the dealer's hand */
+	public int getDealerState() {
+		return dealerState;
+	}
+
+	/* returns the index-th card of the dealer's hand; the first is the
+	 * upcard */
+	public Card getDealerCard(int index) {
+		if(index < 0 || index >= HandState.cardCount(dealerState)) {
+			throw new IndexOutOfBoundsException("card " + index);
+		}
+		return Card.fromId(dealerCards[index]);
+	}
+
+	public Card getDealerUpcard() {
+		return getDealerCard(0);
+	}
+
+	private int currentSlot() {
+		if(!isPlayerTurn()) {
+			throw new IllegalStateException("no hand is waiting to be played");
+		}
+		return seat * MAX_HANDS_PER_SEAT + hand;
+	}
+
+	private int slot(int seat, int hand) {
+		if(hand < 0 || hand >= handCounts[seat]) {
+			throw new IndexOutOfBoundsException("seat " + seat
+					+ " has no hand " + hand);
+		}
+		return seat * MAX_HANDS_PER_SEAT + hand;
+	}
+
+	private void requireSettled() {
+		if(!settled) {
+			throw new IllegalStateException("the round has not finished");
+		}
+	}
+
+	private void finishHand(int slot) {
+		flags[slot] |= DONE;
+		skipFinishedHands();
+	}
+
+	/* moves to the next hand that still needs a decision, finishing hands
+	 * that are on 21 (naturals included) along the way */
+	private void skipFinishedHands() {
+		while(seat < seats) {
+			if(hand < handCounts[seat]) {
+				int slot = seat * MAX_HANDS_PER_SEAT + hand;
+				if(HandState.bestTotal(states[slot]) >= 21) {
+					flags[slot] |= DONE;
+				}
+				if((flags[slot] & DONE) == 0) {
+					return;
+				}
+				hand++;
+			} else {
+				seat++;
+				hand = 0;
+			}
+		}
+	}
+
+	/* returns true if some hand is neither bust nor surrendered, so the
+	 * dealer has to play */
+	private boolean anyHandLive() {
+		for(int s = 0; s < seats; s++) {
+			for(int h = 0; h < handCounts[s]; h++) {
+				int slot = s * MAX_HANDS_PER_SEAT + h;
+				if((flags[slot] & SURRENDERED) == 0
+						&& HandState.hardTotal(states[slot]) <= 21) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void deal(int slot) {
+		int id = nextCard();
+		int count = HandState.cardCount(states[slot]);
+		cards[slot * MAX_CARDS_PER_HAND + count] = (byte) id;
+		states[slot] = HandState.addValue(states[slot], Card.rankValue(id));
+	}
+
+	private void dealDealer() {
+		int id = nextCard();
+		dealerCards[HandState.cardCount(dealerState)] = (byte) id;
+		dealerState = HandState.addValue(dealerState, Card.rankValue(id));
+	}
+
+	/* a full table can empty a single deck shoe in one round; the cards
+	 * discarded in earlier rounds are then shuffled back in so the round
+	 * can finish, while the cards on the table stay where they are */
+	private int nextCard() {
+		if(shoe.cardsRemaining() == 0) {
+			shoe.reshuffleDiscards(dealtThisRound, random);
+		}
+		dealtThisRound++;
+		return shoe.dealOneCard().getId();
+	}
+}
@@ -0,0 +1,251 @@
+package console;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import blackjack.BlackjackModel;
+import blackjack.ChipLedger;
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+import blackjack.Rules;
+import deckOfCards.Card;
+
+/*
+ * ConsoleBlackjack is a text front end for BlackjackModel that plays the same
+ * game as BlackjackGUI, betting and settling with a ChipLedger, but reads one
+ * command per line and writes plain lines back. It never touches AWT or
+ * Swing, so it starts quickly and runs on machines without a display, and
+ * the input can just as well come from a script or another program.
+ *
+ * The commands are
+ *   bet <amount>   takes the bet from the chips and deals a hand
+ *   hit            deals the player another card
+ *   stay           ends the player's turn (stand also works)
+ *   chips          shows the chips
+ *   quit           ends the game (so does the end of the input)
+ *
+ * Every reply line starts with a word saying what it is: chips, dealer,
+ * player, result or error.
+ */
+public class ConsoleBlackjack {
+
+	// the same chips and starting amount as BlackjackGUI
+	public static final long[] DENOMINATIONS = {500, 100, 50, 10, 5};
+	public static final long STARTING_CHIPS = 5000;
+
+	private static final String USAGE = "error: commands are bet <amount>, "
+			+ "hit, stay, chips and quit";
+
+	private final Rules rules;
+	private final RandomGenerator random;
+	private final BufferedReader in;
+	private final PrintWriter out;
+	private final BlackjackModel game;
+	private final ChipLedger chips = new ChipLedger(DENOMINATIONS);
+	private final ChipLedger bet = new ChipLedger(DENOMINATIONS);
+	private boolean handInProgress;
+
+	/* creates a game by the given rules that starts with the given chips,
+	 * shuffles with random, and reads commands from in and replies to out */
+	public ConsoleBlackjack(Rules rules, long startingChips,
+			RandomGenerator random, Reader in, Writer out) {
+		this.rules = rules;
+		this.random = random;
+		this.in = new BufferedReader(in);
+		this.out = new PrintWriter(out);
+		this.game = new BlackjackModel(rules);
+		chips.allocate(startingChips);
+	}
+
+	/* returns the total value of the chips not on the table */
+	public long getChips() {
+		return chips.getTotal();
+	}
+
+	/* plays until a quit command, the end of the input, or the player runs
+	 * out of chips */
+	public void run() throws IOException {
+		printChips();
+		out.flush();
+		String line;
+		boolean going = true;
+		while(going && (line = in.readLine()) != null) {
+			going = command(line.trim());
+			out.flush();
+		}
+		out.flush();
+	}
+
+	/* carries out one command and returns false once the game is over */
+	private boolean command(String line) {
+		String[] words = line.toLowerCase().split("\\s+");
+		switch(words[0]) {
+		case "":
+			return true;
+		case "bet":
+		case "deal":
+			if(words.length != 2) {
+				out.println("error: bet needs an amount");
+				return true;
+			}
+			placeBet(words[1]);
+			return true;
+		case "hit":
+			if(!handInProgress) {
+				out.println("error: no hand is being played");
+				return true;
+			}
+			game.playerTakeCard();
+			printHand("player", game.playerHand());
+			if(BlackjackModel.assessHand(game.playerHand())
+					== HandAssessment.BUST) {
+				return finishHand();
+			}
+			return true;
+		case "stay":
+		case "stand":
+			if(!handInProgress) {
+				out.println("error: no hand is being played");
+				return true;
+			}
+			return finishHand();
+		case "chips":
+			printChips();
+			return true;
+		case "quit":
+		case "exit":
+			if(handInProgress) {
+				out.println("error: finish the hand first");
+				return true;
+			}
+			printChips();
+			return false;
+		default:
+			out.println(USAGE);
+			return true;
+		}
+	}
+
+	/* takes the bet from the chips, making change if the stacks do not
+	 * hold the exact amount, and deals the hand */
+	private void placeBet(String word) {
+		if(handInProgress) {
+			out.println("error: finish the hand first");
+			return;
+		}
+		long amount;
+		try {
+			amount = Long.parseLong(word);
+		} catch(NumberFormatException e) {
+			out.println("error: " + word + " is not an amount");
+			return;
+		}
+		long smallest = chips.getDenomination(chips.getDenominationCount() - 1);
+		if(amount <= 0 || amount % smallest != 0) {
+			out.println("error: a bet is a positive multiple of $" + smallest);
+			return;
+		}
+		if(amount > chips.getTotal()) {
+			out.println("error: you only have $" + chips.getTotal());
+			return;
+		}
+		bet.clear();
+		if(chips.take(amount, bet) != 0) {
+			chips.add(bet, 1);
+			bet.clear();
+			chips.allocate(chips.getTotal() - amount);
+			bet.payOut(amount);
+		}
+		handInProgress = true;
+		out.println("chips $" + chips.getTotal() + ", bet $" + bet.getTotal());
+		game.createAndShuffleDeckLazily(random);
+		game.initialDealerCards();
+		game.initialPlayerCards();
+		out.println("dealer: " + game.getDealerUpcard() + ", (hidden)");
+		printHand("player", game.playerHand());
+		// there is nothing to decide on a natural
+		if(BlackjackModel.assessHand(game.playerHand())
+				== HandAssessment.NATURAL_BLACKJACK) {
+			finishHand();
+		}
+	}
+
+	/* plays the dealer's hand, settles the bet and returns false if the
+	 * player has no chips left */
+	private boolean finishHand() {
+		handInProgress = false;
+		game.playDealerHand();
+		printHand("dealer", game.dealerHand());
+		GameResult result = game.gameAssessment();
+		chips.settle(bet, result, rules);
+		out.println("result: " + describe(result));
+		bet.clear();
+		printChips();
+		if(chips.getTotal() == 0) {
+			out.println("result: out of chips");
+			return false;
+		}
+		return true;
+	}
+
+	/* the same wording BlackjackGUI shows */
+	private String describe(GameResult result) {
+		long totalBet = bet.getTotal();
+		if(result == GameResult.NATURAL_BLACKJACK) {
+			return "Won $" + rules.getWinnings(totalBet, result);
+		}
+		if(result == GameResult.PLAYER_LOST) {
+			return "Lost $" + totalBet;
+		}
+		if(result == GameResult.PLAYER_WON) {
+			return "Won $" + totalBet;
+		}
+		return "Push";
+	}
+
+	private void printHand(String who, List<Card> hand) {
+		StringBuilder text = new StringBuilder(who).append(':');
+		for(int i = 0; i < hand.size(); i++) {
+			text.append(i == 0 ? " " : ", ").append(hand.get(i));
+		}
+		ArrayList<Integer> values = BlackjackModel.possibleHandValues(hand);
+		text.append(" (").append(values.get(0));
+		if(values.size() == 2) {
+			text.append('/').append(values.get(1));
+		}
+		text.append(')');
+		HandAssessment status = BlackjackModel.assessHand(hand);
+		if(status == HandAssessment.NATURAL_BLACKJACK) {
+			text.append(" BLACKJACK!");
+		} else if(status == HandAssessment.BUST) {
+			text.append(" [BUST]");
+		}
+		out.println(text);
+	}
+
+	private void printChips() {
+		out.println("chips $" + chips.getTotal() + " (" + chips + ")");
+	}
+
+	/* plays on standard input and output. The optional arguments are a seed,
+	 * for a repeatable game, and the number of decks */
+	public static void main(String[] args) throws IOException {
+		RandomGenerator random = args.length > 0
+				? new SplittableRandom(Long.parseLong(args[0]))
+				: RandomGenerator.getDefault();
+		Rules rules = args.length > 1
+				? Rules.DEFAULT.withNumberOfDecks(Integer.parseInt(args[1]))
+				: Rules.DEFAULT;
+		new ConsoleBlackjack(rules, STARTING_CHIPS, random,
+				new InputStreamReader(System.in), new PrintWriter(System.out))
+				.run();
+	}
+}
@@ -1,34 +1,109 @@
 package deckOfCards;
 
-/** This class represents a playing card that would be included in 
- * a standard deck of 52 cards.  
- * 
+/** This class represents a playing card that would be included in
+ * a standard deck of 52 cards.
+ *
+ * <p>Every card also has a compact id from 0 to 51 (suit ordinal times 13
+ * plus rank ordinal, the same order a new {@link Deck} deals in).  Code that
+ * handles large numbers of cards can keep them as primitive ids and use
+ * {@link #fromId(int)}, {@link #rankValue(int)} and friends to look them up.
+ *
  * @author Fawzi Emad (C)2020, University of Maryland.
  *
  */
 public class Card {
-	
-	private Suit suit;
-	private Rank rank;
-	
+
+	/** The number of distinct cards, and so the number of card ids. */
+	public static final int NUMBER_OF_CARDS = 52;
+
+	private static final Rank[] RANKS = Rank.values();
+	private static final Suit[] SUITS = Suit.values();
+
+	// The canonical instance of each card, indexed by id
+	private static final Card[] CARDS = new Card[NUMBER_OF_CARDS];
+
+	// Blackjack value and rank ordinal of each card, indexed by id
+	private static final byte[] VALUES = new byte[NUMBER_OF_CARDS];
+	private static final byte[] RANK_ORDINALS = new byte[NUMBER_OF_CARDS];
+
+	static {
+		for (int id = 0; id < NUMBER_OF_CARDS; id++) {
+			Rank rank = RANKS[id % RANKS.length];
+			CARDS[id] = new Card(rank, SUITS[id / RANKS.length]);
+			VALUES[id] = (byte) rank.getValue();
+			RANK_ORDINALS[id] = (byte) rank.ordinal();
+		}
+	}
+
+	private final Suit suit;
+	private final Rank rank;
+	private final byte id;
+
 	public Card(Rank rank, Suit suit) {
 		this.suit = suit;
 		this.rank = rank;
+		this.id = (byte) (suit.ordinal() * RANKS.length + rank.ordinal());
+	}
+
+	/**
+	 * Returns the shared instance of the given card.  Prefer this to the
+	 * constructor; it never allocates.
+	 * @param rank the rank of the card
+	 * @param suit the suit of the card
+	 * @return the canonical card with that rank and suit
+	 */
+	public static Card of(Rank rank, Suit suit) {
+		return CARDS[suit.ordinal() * RANKS.length + rank.ordinal()];
+	}
+
+	/**
+	 * Returns the shared instance of the card with the given id.
+	 * @param id a card id from 0 to 51
+	 * @return the canonical card with that id
+	 */
+	public static Card fromId(int id) {
+		return CARDS[id];
+	}
+
+	/**
+	 * Looks up the Blackjack value of a card id without touching any objects.
+	 * @param id a card id from 0 to 51
+	 * @return the same value as {@code fromId(id).getRank().getValue()}
+	 */
+	public static int rankValue(int id) {
+		return VALUES[id];
 	}
-	
+
+	/**
+	 * Looks up the rank ordinal of a card id without touching any objects.
+	 * @param id a card id from 0 to 51
+	 * @return the same value as {@code fromId(id).getRank().ordinal()}
+	 */
+	public static int rankOrdinal(int id) {
+		return RANK_ORDINALS[id];
+	}
+
 	public Rank getRank() {
 		return rank;
 	}
-	
+
 	public Suit getSuit() {
 		return suit;
 	}
-	
+
+	/**
+	 * Getter for this card's compact id.
+	 * @return a number from 0 to 51 that is unique to this rank and suit
+	 */
+	public byte getId() {
+		return id;
+	}
+
 	@Override
 	public String toString() {
 		return rank + " of " + suit;
 	}
-	
+
 	@Override
 	public boolean equals(Object other) {
 		if (!(other instanceof Card)) {
@@ -37,4 +112,9 @@ public class Card {
 		Card card = (Card)other;
 		return card.suit == suit && card.rank == rank;
 	}
-} 
+
+	@Override
+	public int hashCode() {
+		return id;
+	}
+}
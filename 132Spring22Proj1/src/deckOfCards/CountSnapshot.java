@@ -0,0 +1,82 @@
+package deckOfCards;
+
+/**
+ * An immutable copy of what a {@link Deck} has left to deal: the number of
+ * undealt cards of each rank and the running count of every
+ * {@link CountingSystem}.
+ */
+public class CountSnapshot {
+
+	private static final int RANKS = Rank.values().length;
+
+	private final int numberOfDecks;
+	private final int cardsRemaining;
+	private final int[] remainingByRank;
+	private final int[] runningCounts;
+
+	CountSnapshot(int numberOfDecks, int cardsRemaining, int[] remainingByRank,
+			int[] runningCounts) {
+		this.numberOfDecks = numberOfDecks;
+		this.cardsRemaining = cardsRemaining;
+		this.remainingByRank = remainingByRank.clone();
+		this.runningCounts = runningCounts.clone();
+	}
+
+	public int getNumberOfDecks() {
+		return numberOfDecks;
+	}
+
+	public int getCardsRemaining() {
+		return cardsRemaining;
+	}
+
+	/**
+	 * Returns the number of undealt cards of a rank.
+	 * @param rank the rank to look up
+	 * @return how many cards of that rank have not been dealt
+	 */
+	public int getRemaining(Rank rank) {
+		return remainingByRank[rank.ordinal()];
+	}
+
+	/**
+	 * Returns the number of undealt cards with a Blackjack value.
+	 * @param value a value from 1 (aces) to 10 (tens and face cards)
+	 * @return how many cards with that value have not been dealt
+	 */
+	public int getRemainingWithValue(int value) {
+		if (value < 10) {
+			return remainingByRank[value - 1];
+		}
+		int tens = 0;
+		for (int i = 9; i < RANKS; i++) {
+			tens += remainingByRank[i];
+		}
+		return tens;
+	}
+
+	public int getRunningCount(CountingSystem system) {
+		return runningCounts[system.ordinal()];
+	}
+
+	/**
+	 * Returns the running count divided by the number of decks left to
+	 * deal.
+	 * @param system the counting system
+	 * @return the true count, or 0 once every card has been dealt
+	 */
+	public double getTrueCount(CountingSystem system) {
+		return Deck.trueCount(runningCounts[system.ordinal()], cardsRemaining);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append(cardsRemaining).append(" cards left");
+		for (CountingSystem system : CountingSystem.values()) {
+			text.append(String.format(", %s %d (true %.2f)", system,
+					getRunningCount(system), getTrueCount(system)));
+		}
+		return text.toString();
+	}
+}
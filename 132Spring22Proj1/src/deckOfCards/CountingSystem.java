@@ -0,0 +1,67 @@
+package deckOfCards;
+
+/**
+ * Card counting systems that a {@link Deck} keeps a running count for.
+ * Each system gives every rank a tag; the running count is the sum of the
+ * tags of the cards dealt since the last full shuffle.
+ */
+public enum CountingSystem {
+
+	//        A  2  3  4  5  6  7  8  9  T  J  Q  K
+	HI_LO(   -1, 1, 1, 1, 1, 1, 0, 0, 0,-1,-1,-1,-1),
+	KO(      -1, 1, 1, 1, 1, 1, 1, 0, 0,-1,-1,-1,-1),
+	OMEGA_II( 0, 1, 1, 2, 2, 2, 1, 0,-1,-2,-2,-2,-2);
+
+	private final byte[] tags;  // indexed by rank ordinal
+	private final int deckTotal;  // sum of the tags over one 52 card deck
+
+	private CountingSystem(int... tags) {
+		this.tags = new byte[tags.length];
+		int total = 0;
+		for (int i = 0; i < tags.length; i++) {
+			this.tags[i] = (byte) tags[i];
+			total += 4 * tags[i];
+		}
+		this.deckTotal = total;
+	}
+
+	/**
+	 * Getter for the tag of a rank.
+	 * @param rank the rank of a card
+	 * @return the amount the running count changes when a card of that
+	 * rank is dealt
+	 */
+	public int getTag(Rank rank) {
+		return tags[rank.ordinal()];
+	}
+
+	/**
+	 * Looks up the tag of a card id without touching any objects.
+	 * @param id a card id from 0 to 51
+	 * @return the same value as {@code getTag(Card.fromId(id).getRank())}
+	 */
+	public int tag(int id) {
+		return tags[Card.rankOrdinal(id)];
+	}
+
+	/**
+	 * A system is balanced if a whole deck counts to zero.  Only the true
+	 * count of a balanced system is meaningful.
+	 * @return true if the tags of a full deck add up to zero
+	 */
+	public boolean isBalanced() {
+		return deckTotal == 0;
+	}
+
+	/**
+	 * Returns the running count to start from after a full shuffle.
+	 * Balanced systems start at zero.  An unbalanced system starts low
+	 * enough that it reaches its one-deck total when a single deck's worth
+	 * of cards is left (for KO this is the usual 4 - 4 * decks).
+	 * @param numberOfDecks the number of 52 card decks being dealt
+	 * @return the initial running count
+	 */
+	public int getInitialRunningCount(int numberOfDecks) {
+		return -deckTotal * (numberOfDecks - 1);
+	}
+}
@@ -0,0 +1,23 @@
+package deckOfCards;
+
+/**
+ * Receives every card a {@link Deck} deals, in order, on the thread that
+ * deals it.  Listeners are called inside {@code dealOneCard}, so they should
+ * be quick.
+ */
+public interface DealListener {
+
+	/**
+	 * Called after a card is dealt and the deck's counts are updated.
+	 * @param deck the deck that dealt the card
+	 * @param card the card that was dealt
+	 */
+	public void cardDealt(Deck deck, Card card);
+
+	/**
+	 * Called after the dealt cards have been gathered back and the counts
+	 * reset to a full deck.
+	 * @param deck the deck that was reshuffled
+	 */
+	public void reshuffled(Deck deck);
+}
@@ -1,41 +1,214 @@
 package deckOfCards;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
 
-/* 
+/*
  * A Deck represents a standard deck of 52 cards
- * A Deck can be shuffled and dealt  
+ * A Deck can be shuffled and dealt
+ *
+ * As it deals, a Deck keeps count of the cards of each rank it has left and
+ * of the running count of every CountingSystem, so both can be read at any
+ * time without scanning the cards.
+ *
+ * A Deck can be shuffled all at once, or lazily: shuffleLazily only
+ * remembers the generator, and each card is picked at random from the
+ * undealt ones as it is dealt (one step of a Fisher-Yates shuffle per card).
+ * A hand that uses five cards then only pays for five random numbers.
  */
 public class Deck {
-	
-	// a Card ArrayList of cards
-	private ArrayList<Card> cards;
-	
+
+	// the ids of the cards in dealing order; cards before "next" have
+	// already been dealt
+	protected byte[] cards;
+
+	// the index of the next card to be dealt
+	protected int next;
+
+	private static final CountingSystem[] SYSTEMS = CountingSystem.values();
+	private static final DealListener[] NO_LISTENERS = new DealListener[0];
+
+	// the number of undealt cards of each rank, indexed by rank ordinal
+	private final int[] remainingByRank = new int[Rank.values().length];
+
+	// the running count of each counting system, indexed by ordinal
+	private final int[] runningCounts = new int[SYSTEMS.length];
+
+	// replaced rather than modified, so dealing never needs a lock
+	private volatile DealListener[] listeners = NO_LISTENERS;
+
+	// set by shuffleLazily; picks each card as it is dealt
+	private RandomGenerator lazyGenerator;
+
 	/* This method instantiates the cards with 52 cards.
 	 * The cards are separated by suit (spades, hearts, clubs, diamond) and
 	 * ordered in increasing value (ace to king) */
 	public Deck() {
-		cards = new ArrayList<>(51);
-		for(int suit = 0; suit < 4; suit++) {
-			for(int rank = 0; rank < 13; rank++) {
-				cards.add(new Card(Rank.values()[rank], Suit.values()[suit]));
-			}
+		this(1);
+	}
+
+	/* This constructor lays out numberOfDecks standard decks one after the
+	 * other in a single flat array of card ids, each in the same order as
+	 * Deck(). Dealt cards are the shared instances from Card.fromId, so no
+	 * Card objects are created */
+	protected Deck(int numberOfDecks) {
+		if(numberOfDecks < 1) {
+			throw new IllegalArgumentException("a deck needs at least one "
+					+ "set of 52 cards");
+		}
+		cards = new byte[numberOfDecks * Card.NUMBER_OF_CARDS];
+		for(int index = 0; index < cards.length; index++) {
+			// card ids follow the same suit-then-rank order as a new deck
+			cards[index] = (byte) (index % Card.NUMBER_OF_CARDS);
+		}
+		resetCounts();
+	}
+
+	/* This method shuffles the cards that have not been dealt yet. It walks
+	 * the array exactly like Collections.shuffle, so a full deck shuffled
+	 * with the same java.util.Random comes out in the same order. Any lazy
+	 * shuffle in progress is ended */
+	public void shuffle(RandomGenerator randomNumberGenerator) {
+		lazyGenerator = null;
+		shuffleUndealt(randomNumberGenerator);
+	}
+
+	private void shuffleUndealt(RandomGenerator randomNumberGenerator) {
+		for(int i = cards.length; i > next + 1; i--) {
+			int j = next + randomNumberGenerator.nextInt(i - next);
+			byte temp = cards[i - 1];
+			cards[i - 1] = cards[j];
+			cards[j] = temp;
 		}
 	}
-	
-	/* This method shuffles the deck randomly by calling Collections.shuffle,
-	 * passing in cards and randomNumberGenerator as its parameter */
-	public void shuffle(Random randomNumberGenerator) {
-		Collections.shuffle(cards, randomNumberGenerator);
+
+	/* This method shuffles the cards that have not been dealt yet as they
+	 * are dealt: every later dealOneCard swaps a card picked at random from
+	 * the undealt ones to the front before dealing it. Nothing is done up
+	 * front, so this is cheap when only a few cards will be dealt. The order
+	 * differs from shuffle with the same generator */
+	public void shuffleLazily(RandomGenerator randomNumberGenerator) {
+		lazyGenerator = randomNumberGenerator;
 	}
-	
-	/* This method removes one card from the front of the list and returns it */
+
+	/* This method returns the card at the front of the deck and moves the
+	 * front forward by one. Throws IndexOutOfBoundsException once every
+	 * card has been dealt */
 	public Card dealOneCard() {
-		Card frontCard = cards.get(0);
-		cards.remove(0);
-		return frontCard;
+		if(next >= cards.length) {
+			throw new IndexOutOfBoundsException("no cards left in the deck");
+		}
+		if(lazyGenerator != null) {
+			int j = next + lazyGenerator.nextInt(cards.length - next);
+			byte temp = cards[j];
+			cards[j] = cards[next];
+			cards[next] = temp;
+		}
+		int id = cards[next++];
+		Card card = Card.fromId(id);
+		countDealt(id);
+		DealListener[] current = listeners;
+		for(int i = 0; i < current.length; i++) {
+			current[i].cardDealt(this, card);
+		}
+		return card;
+	}
+
+	/* returns the number of cards that have not been dealt yet */
+	public int cardsRemaining() {
+		return cards.length - next;
 	}
-	
+
+	/* returns the ids of the cards not dealt yet, in the order they will be
+	 * dealt. A lazy shuffle in progress is finished first with its own
+	 * generator, so the order is fixed from here on */
+	public byte[] remainingCardIds() {
+		if(lazyGenerator != null) {
+			RandomGenerator generator = lazyGenerator;
+			lazyGenerator = null;
+			shuffleUndealt(generator);
+		}
+		return Arrays.copyOfRange(cards, next, cards.length);
+	}
+
+	/* returns the number of 52 card decks this deck was made from */
+	public int getNumberOfDecks() {
+		return cards.length / Card.NUMBER_OF_CARDS;
+	}
+
+	/* returns the number of cards of the given rank not dealt yet */
+	public int getRemaining(Rank rank) {
+		return remainingByRank[rank.ordinal()];
+	}
+
+	/* returns the running count of the given system */
+	public int getRunningCount(CountingSystem system) {
+		return runningCounts[system.ordinal()];
+	}
+
+	/* returns the running count of the given system divided by the number
+	 * of decks left to deal, or 0 once every card has been dealt */
+	public double getTrueCount(CountingSystem system) {
+		return trueCount(runningCounts[system.ordinal()], cardsRemaining());
+	}
+
+	/* returns a copy of the remaining cards by rank and the running counts */
+	public CountSnapshot getCountSnapshot() {
+		return new CountSnapshot(getNumberOfDecks(), cardsRemaining(),
+				remainingByRank, runningCounts);
+	}
+
+	/* registers a listener to be told about every card dealt */
+	public synchronized void addDealListener(DealListener listener) {
+		DealListener[] grown = new DealListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, grown, 0, listeners.length);
+		grown[listeners.length] = listener;
+		listeners = grown;
+	}
+
+	/* removes a listener added by addDealListener */
+	public synchronized void removeDealListener(DealListener listener) {
+		for(int i = 0; i < listeners.length; i++) {
+			if(listeners[i] == listener) {
+				DealListener[] shrunk = new DealListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, shrunk, 0, i);
+				System.arraycopy(listeners, i + 1, shrunk, i, shrunk.length - i);
+				listeners = shrunk;
+				return;
+			}
+		}
+	}
+
+	/* takes a dealt card off the remaining cards and adds it to the running
+	 * counts, without telling the listeners */
+	protected void countDealt(int id) {
+		remainingByRank[Card.rankOrdinal(id)]--;
+		for(int i = 0; i < SYSTEMS.length; i++) {
+			runningCounts[i] += SYSTEMS[i].tag(id);
+		}
+	}
+
+	/* puts the counts back to a full deck, for subclasses that gather the
+	 * dealt cards back in, and tells the listeners */
+	protected void resetCounts() {
+		int perRank = getNumberOfDecks() * Suit.values().length;
+		for(int i = 0; i < remainingByRank.length; i++) {
+			remainingByRank[i] = perRank;
+		}
+		for(int i = 0; i < SYSTEMS.length; i++) {
+			runningCounts[i] = SYSTEMS[i].getInitialRunningCount(getNumberOfDecks());
+		}
+		DealListener[] current = listeners;
+		for(int i = 0; i < current.length; i++) {
+			current[i].reshuffled(this);
+		}
+	}
+
+	static double trueCount(int runningCount, int cardsRemaining) {
+		if(cardsRemaining == 0) {
+			return 0;
+		}
+		return runningCount * (double) Card.NUMBER_OF_CARDS / cardsRemaining;
+	}
+
 }
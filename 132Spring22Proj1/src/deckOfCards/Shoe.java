@@ -0,0 +1,105 @@
+package deckOfCards;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+
+/*
+ * A Shoe holds several standard decks of 52 cards in one flat array and deals
+ * them with a moving cursor, so dealing a card never shifts the other cards.
+ *
+ * A cut card is placed at a fixed position in the shoe. Once the cursor
+ * reaches it the shoe reports that it should be reshuffled; the hand in
+ * progress can still be finished with the cards behind the cut card.
+ */
+public class Shoe extends Deck {
+
+	// the number of cards dealt before the shoe asks for a reshuffle
+	private final int cutCardPosition;
+
+	// false until the shoe has been shuffled for the first time
+	private boolean shuffled;
+
+	/* This constructor creates a shoe of numberOfDecks decks whose cut card
+	 * sits cutCardPosition cards from the front. The position must leave at
+	 * least one card in front of the cut card and one behind it */
+	public Shoe(int numberOfDecks, int cutCardPosition) {
+		super(numberOfDecks);
+		if(cutCardPosition < 1 || cutCardPosition >= cards.length) {
+			throw new IllegalArgumentException("cut card position "
+					+ cutCardPosition + " is outside a shoe of "
+					+ cards.length + " cards");
+		}
+		this.cutCardPosition = cutCardPosition;
+	}
+
+	/* This constructor creates a shoe of numberOfDecks decks with the cut
+	 * card placed three quarters of the way in */
+	public Shoe(int numberOfDecks) {
+		this(numberOfDecks, numberOfDecks * Card.NUMBER_OF_CARDS * 3 / 4);
+	}
+
+	/* This method gathers every card back into the shoe (including the ones
+	 * already dealt) and shuffles the whole shoe */
+	@Override
+	public void shuffle(RandomGenerator randomNumberGenerator) {
+		next = 0;
+		super.shuffle(randomNumberGenerator);
+		shuffled = true;
+		resetCounts();
+	}
+
+	/* This method gathers every card back into the shoe and shuffles the
+	 * cards as they are dealt */
+	@Override
+	public void shuffleLazily(RandomGenerator randomNumberGenerator) {
+		next = 0;
+		super.shuffleLazily(randomNumberGenerator);
+		shuffled = true;
+		resetCounts();
+	}
+
+	/* This method gathers the discards (every dealt card except the last
+	 * inPlay ones, which are still on the table) back into the shoe and
+	 * shuffles them with the cards not dealt yet. The cards in play stay
+	 * out and count as dealt from the reshuffled shoe. This is for a shoe
+	 * that runs out in the middle of a round. Throws IllegalStateException
+	 * if every dealt card is still in play */
+	public void reshuffleDiscards(int inPlay,
+			RandomGenerator randomNumberGenerator) {
+		if(inPlay < 0 || inPlay > next) {
+			throw new IllegalArgumentException(inPlay + " cards cannot be in "
+					+ "play when " + next + " have been dealt");
+		}
+		if(inPlay == cards.length) {
+			throw new IllegalStateException("every card in the shoe is in play");
+		}
+		// move the cards in play to the front, ahead of the discards
+		byte[] table = Arrays.copyOfRange(cards, next - inPlay, next);
+		System.arraycopy(cards, 0, cards, inPlay, next - inPlay);
+		System.arraycopy(table, 0, cards, 0, inPlay);
+		next = inPlay;
+		super.shuffle(randomNumberGenerator);
+		shuffled = true;
+		resetCounts();
+		for(int i = 0; i < inPlay; i++) {
+			countDealt(cards[i]);
+		}
+	}
+
+	/* returns true once the cut card has come out, meaning the shoe should be
+	 * reshuffled before the next hand */
+	public boolean reachedCutCard() {
+		return next >= cutCardPosition;
+	}
+
+	/* returns true if the shoe has never been shuffled or the cut card has
+	 * come out */
+	public boolean needsShuffle() {
+		return !shuffled || reachedCutCard();
+	}
+
+	public int getCutCardPosition() {
+		return cutCardPosition;
+	}
+
+}
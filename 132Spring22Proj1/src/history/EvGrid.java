@@ -0,0 +1,102 @@
+package history;
+
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+import blackjack.Rules;
+
+/*
+ * The player's expected return broken down by the player's final total and
+ * the dealer's upcard, built by HandColumnScanner.evByPlayerTotalAndUpcard.
+ *
+ * Winnings are kept in the payout units of the grid's Rules, weighted by
+ * each row's bet, so partial grids add up exactly no matter how the scan was
+ * split.
+ */
+public class EvGrid {
+
+	// player totals from 0 to 31 cover every hand that can be recorded
+	public static final int TOTALS = 32;
+
+	// upcard values run from 1 (ace) to 10
+	public static final int UPCARDS = 11;
+
+	private final long[] hands = new long[TOTALS * UPCARDS];
+	private final long[] bets = new long[TOTALS * UPCARDS];
+	private final long[] netUnits = new long[TOTALS * UPCARDS];
+	private final Rules rules;
+
+	EvGrid(Rules rules) {
+		this.rules = rules;
+	}
+
+	/* adds one row; this is the RowAccumulator for the grid */
+	void add(int playerTotal, int dealerUpcard, int dealerTotal,
+			HandAssessment assessment, GameResult result, long bet) {
+		int cell = Math.min(playerTotal, TOTALS - 1) * UPCARDS + dealerUpcard;
+		hands[cell]++;
+		bets[cell] += bet;
+		netUnits[cell] += bet * rules.getPayoutUnits(result);
+	}
+
+	/* adds the rows of another partial grid to this one */
+	EvGrid merge(EvGrid other) {
+		for(int i = 0; i < hands.length; i++) {
+			hands[i] += other.hands[i];
+			bets[i] += other.bets[i];
+			netUnits[i] += other.netUnits[i];
+		}
+		return this;
+	}
+
+	/* returns the number of hands that ended with the given player total
+	 * against the given upcard value (1 for an ace) */
+	public long getHands(int playerTotal, int dealerUpcard) {
+		return hands[playerTotal * UPCARDS + dealerUpcard];
+	}
+
+	/* returns the player's average net winnings per unit bet for the cell,
+	 * or 0 if no hands landed there */
+	public double getExpectedReturn(int playerTotal, int dealerUpcard) {
+		int cell = playerTotal * UPCARDS + dealerUpcard;
+		return bets[cell] == 0 ? 0
+				: (double) netUnits[cell] / rules.getPayoutScale() / bets[cell];
+	}
+
+	/* returns the expected return over every cell of the grid */
+	public double getExpectedReturn() {
+		long totalBets = 0;
+		long totalNet = 0;
+		for(int i = 0; i < bets.length; i++) {
+			totalBets += bets[i];
+			totalNet += netUnits[i];
+		}
+		return totalBets == 0 ? 0
+				: (double) totalNet / rules.getPayoutScale() / totalBets;
+	}
+
+	/* a table of expected returns in percent, one row per player total that
+	 * occurred and one column per upcard */
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder("total");
+		for(int upcard = 2; upcard <= UPCARDS; upcard++) {
+			text.append(String.format("%8s", upcard == UPCARDS ? "A" : upcard));
+		}
+		for(int total = 0; total < TOTALS; total++) {
+			boolean seen = false;
+			for(int upcard = 1; upcard < UPCARDS; upcard++) {
+				seen |= hands[total * UPCARDS + upcard] > 0;
+			}
+			if(!seen) {
+				continue;
+			}
+			text.append(String.format("%n%5d", total));
+			for(int column = 2; column <= UPCARDS; column++) {
+				int upcard = column == UPCARDS ? 1 : column;
+				text.append(String.format("%8.1f",
+						100 * getExpectedReturn(total, upcard)));
+			}
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,230 @@
+package history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+import blackjack.Rules;
+
+/*
+ * A HandColumnScanner runs aggregations over the rows written by a
+ * HandColumnWriter. The columns stay memory-mapped; only the aggregates
+ * live on the heap, so the number of rows is limited by the disk rather
+ * than by memory.
+ *
+ * A query is split into chunks of at most CHUNK_ROWS rows within a segment.
+ * The chunks are scanned in parallel on a fork/join pool, each into its own
+ * partial aggregate, and the partials are combined as the tasks join.
+ *
+ * The scanner sees the rows that had been written when it was opened.
+ */
+public class HandColumnScanner {
+
+	// the most rows a single task scans before it stops splitting
+	private static final int CHUNK_ROWS = 1 << 16;
+
+	private static final HandAssessment[] ASSESSMENTS = HandAssessment.values();
+	private static final GameResult[] RESULTS = GameResult.values();
+
+	// the mapped columns of each segment, in BYTE_COLUMNS order
+	private final List<ByteBuffer[]> byteColumns = new ArrayList<>();
+	private final List<ByteBuffer> betColumns = new ArrayList<>();
+
+	// each chunk is a segment index and a range of rows within it
+	private final List<int[]> chunks = new ArrayList<>();
+	private long rows;
+
+	/* maps every segment currently in the directory */
+	public HandColumnScanner(Path directory) throws IOException {
+		for(Path segment: Segments.list(directory,
+				HandColumnWriter.SEGMENT_PREFIX, "")) {
+			int segmentRows = (int) map(segment.resolve(HandColumnWriter.ROWS_FILE))
+					.getLong(0);
+			ByteBuffer[] columns = new ByteBuffer[HandColumnWriter.BYTE_COLUMNS.length];
+			for(int i = 0; i < columns.length; i++) {
+				columns[i] = map(segment.resolve(HandColumnWriter.BYTE_COLUMNS[i]));
+			}
+			int index = byteColumns.size();
+			byteColumns.add(columns);
+			betColumns.add(map(segment.resolve(HandColumnWriter.BET_COLUMN)));
+			for(int from = 0; from < segmentRows; from += CHUNK_ROWS) {
+				chunks.add(new int[] {index, from,
+						Math.min(segmentRows, from + CHUNK_ROWS)});
+			}
+			rows += segmentRows;
+		}
+	}
+
+	/* returns the number of rows the scanner can see */
+	public long getRowCount() {
+		return rows;
+	}
+
+	/* returns the number of rows the filter accepts */
+	public long count(HandFilter filter) {
+		long[] total = aggregate(filter, new Supplier<long[]>() {
+			public long[] get() {
+				return new long[1];
+			}
+		}, new RowAccumulator<long[]>() {
+			public void add(long[] count, int playerTotal, int dealerUpcard,
+					int dealerTotal, HandAssessment assessment, GameResult result,
+					long bet) {
+				count[0]++;
+			}
+		}, new BinaryOperator<long[]>() {
+			public long[] apply(long[] left, long[] right) {
+				left[0] += right[0];
+				return left;
+			}
+		});
+		return total[0];
+	}
+
+	/* returns the player's expected return by final total and dealer upcard
+	 * over the rows the filter accepts, paying them by the default rules */
+	public EvGrid evByPlayerTotalAndUpcard(HandFilter filter) {
+		return evByPlayerTotalAndUpcard(filter, Rules.DEFAULT);
+	}
+
+	/* returns the player's expected return by final total and dealer upcard
+	 * over the rows the filter accepts, paying them by the given rules */
+	public EvGrid evByPlayerTotalAndUpcard(HandFilter filter,
+			final Rules rules) {
+		return aggregate(filter, new Supplier<EvGrid>() {
+			public EvGrid get() {
+				return new EvGrid(rules);
+			}
+		}, new RowAccumulator<EvGrid>() {
+			public void add(EvGrid grid, int playerTotal, int dealerUpcard,
+					int dealerTotal, HandAssessment assessment, GameResult result,
+					long bet) {
+				grid.add(playerTotal, dealerUpcard, dealerTotal, assessment,
+						result, bet);
+			}
+		}, new BinaryOperator<EvGrid>() {
+			public EvGrid apply(EvGrid left, EvGrid right) {
+				return left.merge(right);
+			}
+		});
+	}
+
+	/* runs a filtered aggregation on the common fork/join pool */
+	public <T> T aggregate(HandFilter filter, Supplier<T> identity,
+			RowAccumulator<T> accumulator, BinaryOperator<T> combiner) {
+		return aggregate(filter, identity, accumulator, combiner,
+				ForkJoinPool.commonPool());
+	}
+
+	/* runs a filtered aggregation on the given pool. Every chunk starts from
+	 * a fresh identity, folds in the rows the filter accepts, and partial
+	 * results are merged with the combiner */
+	public <T> T aggregate(HandFilter filter, Supplier<T> identity,
+			RowAccumulator<T> accumulator, BinaryOperator<T> combiner,
+			ForkJoinPool pool) {
+		return pool.invoke(new ScanTask<>(0, chunks.size(), filter, identity,
+				accumulator, combiner));
+	}
+
+	private static ByteBuffer map(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/* scans the chunks numbered from (inclusive) to to (exclusive) */
+	private class ScanTask<T> extends RecursiveTask<T> {
+
+		private static final long serialVersionUID = 0L;
+
+		private final int from;
+		private final int to;
+		private final HandFilter filter;
+		private final Supplier<T> identity;
+		private final RowAccumulator<T> accumulator;
+		private final BinaryOperator<T> combiner;
+
+		ScanTask(int from, int to, HandFilter filter, Supplier<T> identity,
+				RowAccumulator<T> accumulator, BinaryOperator<T> combiner) {
+			this.from = from;
+			this.to = to;
+			this.filter = filter;
+			this.identity = identity;
+			this.accumulator = accumulator;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected T compute() {
+			if(to - from <= 1) {
+				T aggregate = identity.get();
+				if(from < to) {
+					scan(chunks.get(from), aggregate);
+				}
+				return aggregate;
+			}
+			int middle = (from + to) >>> 1;
+			ScanTask<T> left = new ScanTask<>(from, middle, filter, identity,
+					accumulator, combiner);
+			left.fork();
+			T right = new ScanTask<>(middle, to, filter, identity, accumulator,
+					combiner).compute();
+			return combiner.apply(left.join(), right);
+		}
+
+		private void scan(int[] chunk, T aggregate) {
+			ByteBuffer[] columns = byteColumns.get(chunk[0]);
+			ByteBuffer playerTotals = columns[HandColumnWriter.PLAYER_TOTAL];
+			ByteBuffer upcards = columns[HandColumnWriter.DEALER_UPCARD];
+			ByteBuffer dealerTotals = columns[HandColumnWriter.DEALER_TOTAL];
+			ByteBuffer assessments = columns[HandColumnWriter.ASSESSMENT];
+			ByteBuffer results = columns[HandColumnWriter.RESULT];
+			ByteBuffer bets = betColumns.get(chunk[0]);
+			for(int row = chunk[1]; row < chunk[2]; row++) {
+				int playerTotal = playerTotals.get(row);
+				int upcard = upcards.get(row);
+				int dealerTotal = dealerTotals.get(row);
+				HandAssessment assessment = ASSESSMENTS[assessments.get(row)];
+				GameResult result = RESULTS[results.get(row)];
+				long bet = bets.getLong(row * 8);
+				if(filter.accept(playerTotal, upcard, dealerTotal, assessment,
+						result, bet)) {
+					accumulator.add(aggregate, playerTotal, upcard, dealerTotal,
+							assessment, result, bet);
+				}
+			}
+		}
+	}
+
+	/* prints the expected return by player total and upcard from the command
+	 * line: HandColumnScanner columnDirectory [journalDirectory]. If a journal
+	 * is given its rounds are added to the columns first */
+	public static void main(String[] args) throws IOException {
+		Path columns = Paths.get(args[0]);
+		if(args.length > 1) {
+			try(HandColumnWriter writer = new HandColumnWriter(columns);
+					HandJournalReader reader = new HandJournalReader(Paths.get(args[1]))) {
+				for(HandRecord record = reader.next(); record != null;
+						record = reader.next()) {
+					writer.append(record);
+				}
+			}
+		}
+		HandColumnScanner scanner = new HandColumnScanner(columns);
+		long start = System.nanoTime();
+		EvGrid grid = scanner.evByPlayerTotalAndUpcard(HandFilter.ALL);
+		System.out.printf("%,d rows scanned in %.2f s%n%s%n", scanner.getRowCount(),
+				(System.nanoTime() - start) / 1e9, grid);
+	}
+}
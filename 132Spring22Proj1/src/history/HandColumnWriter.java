@@ -0,0 +1,154 @@
+package history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import blackjack.BlackjackModel;
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+import blackjack.HandState;
+
+/*
+ * A HandColumnWriter stores hand outcomes column by column so that a
+ * HandColumnScanner can aggregate them without reading whole rounds back.
+ *
+ * Rows are grouped into segments of a fixed number of rows. Each segment is a
+ * directory holding one memory-mapped file per attribute: the player's final
+ * total, the dealer's upcard value, the dealer's final total, the player's
+ * HandAssessment and the GameResult (one byte each) and the bet (eight
+ * bytes). A separate rows file holds the number of rows written, and it is
+ * only advanced after every column of the row has been written, so a reader
+ * never sees half a row.
+ *
+ * Appends are synchronized, so one writer can be shared by many threads.
+ */
+public class HandColumnWriter implements Closeable {
+
+	public static final int DEFAULT_ROWS_PER_SEGMENT = 1 << 22;
+
+	static final String SEGMENT_PREFIX = "columns-";
+	static final String ROWS_FILE = "rows";
+	static final String[] BYTE_COLUMNS = {"playerTotal", "dealerUpcard",
+			"dealerTotal", "assessment", "result"};
+	static final String BET_COLUMN = "bet";
+
+	static final int PLAYER_TOTAL = 0;
+	static final int DEALER_UPCARD = 1;
+	static final int DEALER_TOTAL = 2;
+	static final int ASSESSMENT = 3;
+	static final int RESULT = 4;
+
+	private final Path directory;
+	private final int rowsPerSegment;
+	private final MappedByteBuffer[] byteColumns =
+			new MappedByteBuffer[BYTE_COLUMNS.length];
+	private MappedByteBuffer betColumn;
+	private MappedByteBuffer rowCount;
+	private int segmentNumber;
+	private int row;
+	private boolean closed;
+
+	/* opens a column store in the given directory with the default segment
+	 * size */
+	public HandColumnWriter(Path directory) throws IOException {
+		this(directory, DEFAULT_ROWS_PER_SEGMENT);
+	}
+
+	/* opens a column store in the given directory, creating it if needed.
+	 * Existing segments are kept and new rows go into a fresh segment */
+	public HandColumnWriter(Path directory, int rowsPerSegment)
+			throws IOException {
+		if(rowsPerSegment < 1 || rowsPerSegment > Integer.MAX_VALUE / 8) {
+			throw new IllegalArgumentException("cannot map a segment of "
+					+ rowsPerSegment + " rows");
+		}
+		this.directory = directory;
+		this.rowsPerSegment = rowsPerSegment;
+		Files.createDirectories(directory);
+		segmentNumber = Segments.nextNumber(directory, SEGMENT_PREFIX, "");
+		openSegment();
+	}
+
+	/* stores the outcome of a finished round of the given game */
+	public void append(BlackjackModel game, GameResult result, long bet)
+			throws IOException {
+		int player = game.getPlayerState();
+		int dealer = game.getDealerState();
+		append(HandState.bestTotal(player), game.getDealerUpcard().getRank().getValue(),
+				HandState.bestTotal(dealer), HandState.assess(player), result, bet);
+	}
+
+	/* stores the outcome of a round read back from a HandJournal */
+	public void append(HandRecord record) throws IOException {
+		append(record.replay(), record.getResult(), record.getBet());
+	}
+
+	/* stores one row. Totals are the best totals of the final hands, so a
+	 * bust hand has a total over 21 */
+	public synchronized void append(int playerTotal, int dealerUpcard,
+			int dealerTotal, HandAssessment assessment, GameResult result,
+			long bet) throws IOException {
+		if(closed) {
+			throw new IOException("the column store is closed");
+		}
+		if(row == rowsPerSegment) {
+			force();
+			segmentNumber++;
+			openSegment();
+		}
+		byteColumns[PLAYER_TOTAL].put(row, (byte) playerTotal);
+		byteColumns[DEALER_UPCARD].put(row, (byte) dealerUpcard);
+		byteColumns[DEALER_TOTAL].put(row, (byte) dealerTotal);
+		byteColumns[ASSESSMENT].put(row, (byte) assessment.ordinal());
+		byteColumns[RESULT].put(row, (byte) result.ordinal());
+		betColumn.putLong(row * 8, bet);
+		row++;
+		rowCount.putLong(0, row);
+	}
+
+	/* forces every column of the current segment out to the disk */
+	public synchronized void flush() {
+		if(!closed) {
+			force();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		flush();
+		closed = true;
+	}
+
+	private void force() {
+		for(MappedByteBuffer column: byteColumns) {
+			column.force();
+		}
+		betColumn.force();
+		rowCount.force();
+	}
+
+	private void openSegment() throws IOException {
+		Path segment = Segments.resolve(directory, SEGMENT_PREFIX,
+				segmentNumber, "");
+		Files.createDirectory(segment);
+		for(int i = 0; i < BYTE_COLUMNS.length; i++) {
+			byteColumns[i] = map(segment.resolve(BYTE_COLUMNS[i]), rowsPerSegment);
+		}
+		betColumn = map(segment.resolve(BET_COLUMN), rowsPerSegment * 8L);
+		rowCount = map(segment.resolve(ROWS_FILE), 8);
+		row = 0;
+	}
+
+	private static MappedByteBuffer map(Path file, long size) throws IOException {
+		try(FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package history;
+
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+
+/*
+ * Picks the rows a HandColumnScanner query looks at. The values come straight
+ * from the columns, so no object is created per row.
+ */
+public interface HandFilter {
+
+	// accepts every row
+	public static final HandFilter ALL = new HandFilter() {
+		public boolean accept(int playerTotal, int dealerUpcard, int dealerTotal,
+				HandAssessment assessment, GameResult result, long bet) {
+			return true;
+		}
+	};
+
+	/* returns true if the row should be included */
+	public boolean accept(int playerTotal, int dealerUpcard, int dealerTotal,
+			HandAssessment assessment, GameResult result, long bet);
+}
@@ -0,0 +1,186 @@
+package history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import blackjack.BlackjackModel;
+import blackjack.GameResult;
+import deckOfCards.Card;
+
+/*
+ * A HandJournal appends every round it is given to a directory of
+ * memory-mapped segment files. Segments are never rewritten; when one fills
+ * up the journal starts the next, and a journal reopened on the same
+ * directory starts a fresh segment after the existing ones.
+ *
+ * Each segment starts with the magic number and format version, followed by
+ * records laid out as
+ *   int    length of the body in bytes
+ *   body   varint chunk seed, varint bet, result ordinal, player card count,
+ *          dealer card count, then every card id packed into 6 bits
+ *   int    CRC32 of the body
+ * padded to a multiple of 4 bytes. The length is written after the body and
+ * checksum, so a record only becomes visible once it is complete: if the
+ * process dies part way through an append the reader sees a zero length and
+ * moves on to the next segment. The checksum catches records torn by a power
+ * failure before the pages reached the disk; call flush to force them out.
+ *
+ * Appends are synchronized, so one journal can be shared by many threads.
+ */
+public class HandJournal implements Closeable {
+
+	public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+	static final int MAGIC = 0x424A484A;  // "BJHJ"
+	static final int VERSION = 1;
+	static final int SEGMENT_HEADER_SIZE = 8;
+	static final String SEGMENT_PREFIX = "hands-";
+	static final String SEGMENT_SUFFIX = ".journal";
+
+	// the most cards a single hand may hold in a record
+	static final int MAX_CARDS_PER_HAND = 63;
+
+	// two varints, three single bytes and two hands of 6 bit cards
+	private static final int MAX_BODY_SIZE = 10 + 10 + 3
+			+ (2 * MAX_CARDS_PER_HAND * 6 + 7) / 8;
+
+	private final Path directory;
+	private final int segmentSize;
+	private final byte[] body = new byte[MAX_BODY_SIZE];
+	private final CRC32 checksum = new CRC32();
+
+	private MappedByteBuffer segment;
+	private int segmentNumber;
+	private long records;
+
+	/* opens a journal in the given directory with 64MB segments */
+	public HandJournal(Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/* opens a journal in the given directory, creating the directory if
+	 * needed. Each segment file is segmentSize bytes */
+	public HandJournal(Path directory, int segmentSize) throws IOException {
+		if(segmentSize < SEGMENT_HEADER_SIZE + frameSize(MAX_BODY_SIZE)) {
+			throw new IllegalArgumentException("segment size " + segmentSize
+					+ " cannot hold a record");
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+		segmentNumber = Segments.nextNumber(directory, SEGMENT_PREFIX,
+				SEGMENT_SUFFIX);
+		openSegment();
+	}
+
+	/* records a finished round of the given game */
+	public void append(long chunkSeed, long bet, BlackjackModel game,
+			GameResult result) throws IOException {
+		append(chunkSeed, bet, game.playerHand(), game.dealerHand(), result);
+	}
+
+	/* records a finished round: the chunk seed (see HandRecord), the bet,
+	 * the cards of each hand in the order they were dealt and the result */
+	public synchronized void append(long chunkSeed, long bet, List<Card> playerCards,
+			List<Card> dealerCards, GameResult result) throws IOException {
+		if(segment == null) {
+			throw new IOException("the journal is closed");
+		}
+		if(playerCards.size() > MAX_CARDS_PER_HAND
+				|| dealerCards.size() > MAX_CARDS_PER_HAND) {
+			throw new IllegalArgumentException("a hand of more than "
+					+ MAX_CARDS_PER_HAND + " cards cannot be recorded");
+		}
+		int length = putVarLong(0, chunkSeed);
+		length = putVarLong(length, bet);
+		body[length++] = (byte) result.ordinal();
+		body[length++] = (byte) playerCards.size();
+		body[length++] = (byte) dealerCards.size();
+		int bits = 0;
+		int pending = 0;
+		for(int i = 0; i < playerCards.size() + dealerCards.size(); i++) {
+			Card card = i < playerCards.size() ? playerCards.get(i)
+					: dealerCards.get(i - playerCards.size());
+			pending = pending << 6 | card.getId();
+			bits += 6;
+			if(bits >= 8) {
+				bits -= 8;
+				body[length++] = (byte) (pending >>> bits);
+				pending &= (1 << bits) - 1;
+			}
+		}
+		if(bits > 0) {
+			body[length++] = (byte) (pending << (8 - bits));
+		}
+
+		int frame = frameSize(length);
+		if(segment.remaining() < frame) {
+			segment.force();
+			segmentNumber++;
+			openSegment();
+		}
+		checksum.reset();
+		checksum.update(body, 0, length);
+		int start = segment.position();
+		segment.position(start + 4);
+		segment.put(body, 0, length);
+		segment.putInt((int) checksum.getValue());
+		// publishing the length last is what makes the record visible
+		segment.putInt(start, length);
+		segment.position(start + frame);
+		records++;
+	}
+
+	/* returns the number of rounds appended since the journal was opened */
+	public synchronized long getRecordCount() {
+		return records;
+	}
+
+	/* forces the current segment out to the disk */
+	public synchronized void flush() {
+		if(segment != null) {
+			segment.force();
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		flush();
+		segment = null;
+	}
+
+	private void openSegment() throws IOException {
+		Path file = Segments.resolve(directory, SEGMENT_PREFIX, segmentNumber,
+				SEGMENT_SUFFIX);
+		try(FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+		segment.putInt(MAGIC);
+		segment.putInt(VERSION);
+	}
+
+	/* writes value as an unsigned varint at index of the body and returns the
+	 * index after it */
+	private int putVarLong(int index, long value) {
+		while((value & ~0x7FL) != 0) {
+			body[index++] = (byte) (value & 0x7F | 0x80);
+			value >>>= 7;
+		}
+		body[index++] = (byte) value;
+		return index;
+	}
+
+	/* the bytes a record takes with its length, checksum and padding */
+	static int frameSize(int bodyLength) {
+		return (bodyLength + 8 + 3) & ~3;
+	}
+}
@@ -0,0 +1,135 @@
+package history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import blackjack.GameResult;
+
+/*
+ * A HandJournalReader replays the records of a HandJournal directory in the
+ * order they were appended, one segment after another.
+ *
+ * Within a segment it stops at the first record that was never completed
+ * (a zero length) or whose checksum does not match, since nothing after such
+ * a record was committed by the writer that produced it.
+ */
+public class HandJournalReader implements Closeable {
+
+	private static final GameResult[] RESULTS = GameResult.values();
+
+	private final List<Path> files;
+	private final CRC32 checksum = new CRC32();
+	private final byte[] body = new byte[256];
+	private int bodyIndex;
+	private int nextFile;
+	private MappedByteBuffer segment;
+
+	/* opens every segment currently in the directory */
+	public HandJournalReader(Path directory) throws IOException {
+		files = Segments.list(directory, HandJournal.SEGMENT_PREFIX,
+				HandJournal.SEGMENT_SUFFIX);
+	}
+
+	/* returns the next record, or null once every segment has been read */
+	public HandRecord next() throws IOException {
+		while(true) {
+			if(segment == null) {
+				if(nextFile == files.size()) {
+					return null;
+				}
+				openSegment(files.get(nextFile++));
+			}
+			HandRecord record = readRecord();
+			if(record != null) {
+				return record;
+			}
+			segment = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		segment = null;
+		nextFile = files.size();
+	}
+
+	private void openSegment(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if(segment.remaining() < HandJournal.SEGMENT_HEADER_SIZE
+				|| segment.getInt() != HandJournal.MAGIC) {
+			throw new IOException(file + " is not a hand journal segment");
+		}
+		int version = segment.getInt();
+		if(version != HandJournal.VERSION) {
+			throw new IOException(file + " uses unknown journal version "
+					+ version);
+		}
+	}
+
+	/* reads the record at the current position, or returns null if there is
+	 * no committed record there */
+	private HandRecord readRecord() {
+		if(segment.remaining() < 4) {
+			return null;
+		}
+		int start = segment.position();
+		int length = segment.getInt(start);
+		if(length <= 0 || length > body.length
+				|| HandJournal.frameSize(length) > segment.remaining()) {
+			return null;
+		}
+		segment.position(start + 4);
+		segment.get(body, 0, length);
+		checksum.reset();
+		checksum.update(body, 0, length);
+		if(segment.getInt() != (int) checksum.getValue()) {
+			return null;
+		}
+		segment.position(start + HandJournal.frameSize(length));
+
+		bodyIndex = 0;
+		long chunkSeed = getVarLong();
+		long bet = getVarLong();
+		GameResult result = RESULTS[body[bodyIndex++]];
+		byte[] player = new byte[body[bodyIndex++]];
+		byte[] dealer = new byte[body[bodyIndex++]];
+		int bits = 0;
+		int pending = 0;
+		for(int i = 0; i < player.length + dealer.length; i++) {
+			if(bits < 6) {
+				pending = pending << 8 | body[bodyIndex++] & 0xFF;
+				bits += 8;
+			}
+			bits -= 6;
+			byte id = (byte) (pending >>> bits);
+			pending &= (1 << bits) - 1;
+			if(i < player.length) {
+				player[i] = id;
+			} else {
+				dealer[i - player.length] = id;
+			}
+		}
+		return new HandRecord(chunkSeed, bet, result, player, dealer);
+	}
+
+	/* reads an unsigned varint from the body */
+	private long getVarLong() {
+		long value = 0;
+		int shift = 0;
+		byte next;
+		do {
+			next = body[bodyIndex++];
+			value |= (long) (next & 0x7F) << shift;
+			shift += 7;
+		} while(next < 0);
+		return value;
+	}
+}
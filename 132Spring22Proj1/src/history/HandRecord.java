@@ -0,0 +1,98 @@
+package history;
+
+import java.util.ArrayList;
+
+import blackjack.BlackjackModel;
+import blackjack.GameResult;
+import blackjack.HandState;
+import deckOfCards.Card;
+
+/*
+ * One round read back from a HandJournal: the chunk seed, the bet, every
+ * card dealt to each hand in order, and the result.
+ *
+ * The chunk seed is the seed of the generator behind the whole run of
+ * rounds the round was dealt in (one simulator chunk, say), so many rounds
+ * share it and it cannot reproduce any one of them. A round is rebuilt from
+ * its recorded cards alone, which is what replay does.
+ *
+ * The player's only decisions are to hit or to stay. Every player card after
+ * the first two is a hit, and a hand that did not bust ended with a stay, so
+ * the decisions are recorded by the cards themselves.
+ */
+public class HandRecord {
+
+	private final long chunkSeed;
+	private final long bet;
+	private final GameResult result;
+	private final byte[] playerCards;
+	private final byte[] dealerCards;
+
+	HandRecord(long chunkSeed, long bet, GameResult result, byte[] playerCards,
+			byte[] dealerCards) {
+		this.chunkSeed = chunkSeed;
+		this.bet = bet;
+		this.result = result;
+		this.playerCards = playerCards;
+		this.dealerCards = dealerCards;
+	}
+
+	public long getChunkSeed() {
+		return chunkSeed;
+	}
+
+	public long getBet() {
+		return bet;
+	}
+
+	public GameResult getResult() {
+		return result;
+	}
+
+	public ArrayList<Card> getPlayerCards() {
+		return toCards(playerCards);
+	}
+
+	public ArrayList<Card> getDealerCards() {
+		return toCards(dealerCards);
+	}
+
+	/* returns the number of times the player hit */
+	public int getHits() {
+		return Math.max(0, playerCards.length - 2);
+	}
+
+	/* returns true if the player ended the turn by staying rather than by
+	 * busting */
+	public boolean playerStood() {
+		int state = HandState.EMPTY;
+		for(byte id: playerCards) {
+			state = HandState.addValue(state, Card.rankValue(id));
+		}
+		return HandState.hardTotal(state) <= 21;
+	}
+
+	/* rebuilds the round as a BlackjackModel holding exactly the recorded
+	 * hands, so it can be assessed or drawn again */
+	public BlackjackModel replay() {
+		BlackjackModel game = new BlackjackModel();
+		game.setPlayerCards(getPlayerCards());
+		game.setDealerCards(getDealerCards());
+		return game;
+	}
+
+	@Override
+	public String toString() {
+		return "chunk seed " + chunkSeed + ", bet " + bet + ", player "
+				+ getPlayerCards() + ", dealer " + getDealerCards() + ": "
+				+ result;
+	}
+
+	private static ArrayList<Card> toCards(byte[] ids) {
+		ArrayList<Card> cards = new ArrayList<>(ids.length);
+		for(byte id: ids) {
+			cards.add(Card.fromId(id));
+		}
+		return cards;
+	}
+}
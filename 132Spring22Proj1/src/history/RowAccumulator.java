@@ -0,0 +1,15 @@
+package history;
+
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+
+/*
+ * Folds one row of a HandColumnScanner query into a partial aggregate. Each
+ * partial aggregate is only ever used by one thread at a time.
+ */
+public interface RowAccumulator<T> {
+
+	public void add(T aggregate, int playerTotal, int dealerUpcard,
+			int dealerTotal, HandAssessment assessment, GameResult result,
+			long bet);
+}
@@ -0,0 +1,55 @@
+package history;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Segments names and lists the numbered segments that HandJournal and
+ * HandColumnWriter write into a directory. A segment is called prefix, then
+ * its number as eight digits, then suffix, so sorting the names puts the
+ * segments in the order they were written.
+ */
+final class Segments {
+
+	private Segments() {
+	}
+
+	/* returns the path of the segment with the given number */
+	static Path resolve(Path directory, String prefix, int number,
+			String suffix) {
+		return directory.resolve(String.format("%s%08d%s", prefix, number,
+				suffix));
+	}
+
+	/* returns the segments in a directory, in the order they were written */
+	static List<Path> list(Path directory, String prefix, String suffix)
+			throws IOException {
+		List<Path> files = new ArrayList<>();
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				prefix + "*" + suffix)) {
+			for(Path file: stream) {
+				files.add(file);
+			}
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	/* returns the number to give the next segment written to a directory,
+	 * one past the last one there, or 0 if there are none */
+	static int nextNumber(Path directory, String prefix, String suffix)
+			throws IOException {
+		List<Path> existing = list(directory, prefix, suffix);
+		if(existing.isEmpty()) {
+			return 0;
+		}
+		String name = existing.get(existing.size() - 1).getFileName().toString();
+		return Integer.parseInt(name.substring(prefix.length(),
+				name.length() - suffix.length())) + 1;
+	}
+}
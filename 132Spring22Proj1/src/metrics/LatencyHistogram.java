@@ -0,0 +1,92 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * A LatencyHistogram counts durations in nanoseconds in buckets that split
+ * every power of two into SUB_BUCKETS equal parts, so a percentile read back
+ * from it is within 1/SUB_BUCKETS (12.5%) of the true value. Durations of
+ * 2^MAX_POWER ns (about 18 minutes) or more share the last bucket.
+ *
+ * The counts are LongAdders, so many threads can record at once and the
+ * percentiles can be read while they do.
+ */
+class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int MAX_POWER = 40;
+
+	// the values below SUB_BUCKETS get one bucket each
+	private static final int BUCKETS = (MAX_POWER - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final LongAdder[] counts = new LongAdder[BUCKETS];
+	private final LongAdder total = new LongAdder();
+
+	LatencyHistogram() {
+		for(int i = 0; i < BUCKETS; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	void record(long nanos) {
+		counts[bucket(Math.max(0, nanos))].increment();
+		total.increment();
+	}
+
+	long getCount() {
+		return total.sum();
+	}
+
+	/* returns an upper bound on the given fraction (0 to 1) of the recorded
+	 * durations, or 0 if nothing was recorded */
+	long percentile(double fraction) {
+		long[] copy = new long[BUCKETS];
+		long recorded = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts[i].sum();
+			recorded += copy[i];
+		}
+		if(recorded == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * recorded));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += copy[i];
+			if(seen >= rank) {
+				return upperBound(i);
+			}
+		}
+		return upperBound(BUCKETS - 1);
+	}
+
+	void reset() {
+		for(LongAdder count: counts) {
+			count.reset();
+		}
+		total.reset();
+	}
+
+	/* the top SUB_BITS + 1 bits of the value pick the bucket */
+	static int bucket(long nanos) {
+		if(nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int power = 63 - Long.numberOfLeadingZeros(nanos);
+		if(power >= MAX_POWER) {
+			return BUCKETS - 1;
+		}
+		int sub = (int) (nanos >>> (power - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (power - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long upperBound(int bucket) {
+		if(bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int power = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return (SUB_BUCKETS + sub + 1 << (power - SUB_BITS)) - 1;
+	}
+}
@@ -0,0 +1,162 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/*
+ * RoundMetrics is the process-wide registry BlackjackModel reports the
+ * stages of every round to. It serves two consumers:
+ *
+ *  - JDK Flight Recorder, through a RoundStageEvent per stage. Turn it on
+ *    with -XX:StartFlightRecording or jcmd JFR.start; the events are named
+ *    blackjack.RoundStage.
+ *  - In-process metrics, turned on with setEnabled: a latency histogram per
+ *    stage and the number of hands (shuffles) since the metrics were last
+ *    reset, for hands per second.
+ *
+ * With both off a stage costs two reads of flags that are already in cache:
+ * begin returns null without timing or allocating anything, and end ignores
+ * it. Whether any Flight Recorder recording is running is tracked with a
+ * FlightRecorderListener rather than asked on every stage.
+ *
+ * A stage is reported as
+ *   RoundStageEvent event = RoundMetrics.begin(Stage.X);
+ *   ... the stage ...
+ *   RoundMetrics.end(event, playerCards, dealerCards);
+ */
+public final class RoundMetrics {
+
+	private static final Stage[] STAGES = Stage.values();
+
+	private static volatile boolean enabled;
+	private static volatile boolean recording;
+	private static volatile long resetNanos = System.nanoTime();
+
+	private static final LatencyHistogram[] LATENCIES =
+			new LatencyHistogram[STAGES.length];
+	private static final LongAdder HANDS = new LongAdder();
+
+	static {
+		for(int i = 0; i < LATENCIES.length; i++) {
+			LATENCIES[i] = new LatencyHistogram();
+		}
+		if(FlightRecorder.isAvailable()) {
+			// a recording started from the command line may already be
+			// running; asking otherwise would start the recorder up
+			recording = FlightRecorder.isInitialized() && anyRecordingRunning();
+			FlightRecorder.addListener(new FlightRecorderListener() {
+				@Override
+				public void recordingStateChanged(Recording changed) {
+					recording = anyRecordingRunning();
+				}
+			});
+		}
+	}
+
+	private RoundMetrics() {
+	}
+
+	/* turns the in-process metrics on or off. Flight Recorder events are
+	 * controlled by the recording, not by this */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/* clears every histogram and restarts the hands per second clock */
+	public static void reset() {
+		for(LatencyHistogram latency: LATENCIES) {
+			latency.reset();
+		}
+		HANDS.reset();
+		resetNanos = System.nanoTime();
+	}
+
+	/* starts timing a stage. Returns null if nothing is listening */
+	public static RoundStageEvent begin(Stage stage) {
+		if(!enabled && !recording) {
+			return null;
+		}
+		RoundStageEvent event = new RoundStageEvent();
+		event.kind = stage;
+		if(enabled) {
+			event.startNanos = System.nanoTime();
+		}
+		event.begin();
+		return event;
+	}
+
+	/* finishes timing a stage, given the number of cards in each hand at its
+	 * end. Does nothing if event is null */
+	public static void end(RoundStageEvent event, int playerCards,
+			int dealerCards) {
+		if(event == null) {
+			return;
+		}
+		event.end();
+		if(event.shouldCommit()) {
+			event.stage = event.kind.name();
+			event.playerCards = playerCards;
+			event.dealerCards = dealerCards;
+			event.commit();
+		}
+		if(enabled && event.startNanos != 0) {
+			LATENCIES[event.kind.ordinal()].record(System.nanoTime()
+					- event.startNanos);
+			if(event.kind == Stage.SHUFFLE) {
+				HANDS.increment();
+			}
+		}
+	}
+
+	/* returns the number of times a stage has been timed since the last
+	 * reset */
+	public static long getCount(Stage stage) {
+		return LATENCIES[stage.ordinal()].getCount();
+	}
+
+	/* returns an upper bound, within 12.5%, on the given percentile (0 to
+	 * 100) of a stage's duration in nanoseconds */
+	public static long getPercentileNanos(Stage stage, double percentile) {
+		return LATENCIES[stage.ordinal()].percentile(percentile / 100);
+	}
+
+	/* returns the hands started per second since the last reset */
+	public static double getHandsPerSecond() {
+		double seconds = (System.nanoTime() - resetNanos) / 1e9;
+		return seconds <= 0 ? 0 : HANDS.sum() / seconds;
+	}
+
+	private static boolean anyRecordingRunning() {
+		for(Recording running: FlightRecorder.getFlightRecorder().getRecordings()) {
+			if(running.getState() == RecordingState.RUNNING) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/* a table of every stage that has been timed */
+	public static String report() {
+		StringBuilder text = new StringBuilder(String.format(
+				"%.0f hands/s%n%-22s %12s %9s %9s %9s", getHandsPerSecond(),
+				"stage (ns)", "count", "p50", "p99", "p99.9"));
+		for(Stage stage: STAGES) {
+			long count = getCount(stage);
+			if(count == 0) {
+				continue;
+			}
+			text.append(String.format("%n%-22s %,12d %,9d %,9d %,9d", stage, count,
+					getPercentileNanos(stage, 50), getPercentileNanos(stage, 99),
+					getPercentileNanos(stage, 99.9)));
+		}
+		return text.toString();
+	}
+}
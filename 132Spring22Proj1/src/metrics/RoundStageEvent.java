@@ -0,0 +1,37 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * The Flight Recorder event for one stage of a round. The event's own
+ * duration is the time the stage took; the fields say which stage it was
+ * and how many cards each hand held when it ended.
+ *
+ * Created through RoundMetrics.begin, never directly. When no recording has
+ * the event enabled, begin and commit do nothing and the JIT can drop the
+ * object altogether.
+ */
+@Name("blackjack.RoundStage")
+@Label("Round Stage")
+@Category("Blackjack")
+@Description("One stage of a blackjack round")
+@StackTrace(false)
+public class RoundStageEvent extends jdk.jfr.Event {
+
+	@Label("Stage")
+	String stage;
+
+	@Label("Player Cards")
+	int playerCards;
+
+	@Label("Dealer Cards")
+	int dealerCards;
+
+	// for RoundMetrics only; transient fields are not recorded
+	transient Stage kind;
+	transient long startNanos;
+}
@@ -0,0 +1,15 @@
+package metrics;
+
+/*
+ * The stages of a round that BlackjackModel reports to RoundMetrics and to
+ * JDK Flight Recorder.
+ */
+public enum Stage {
+	SHUFFLE,               // createAndShuffleDeck, once per round
+	INITIAL_DEALER_CARDS,  // initialDealerCards
+	INITIAL_PLAYER_CARDS,  // initialPlayerCards
+	PLAYER_TAKE_CARD,      // playerTakeCard
+	DEALER_TAKE_CARD,      // dealerTakeCard
+	DEALER_LOOP,           // playDealerHand, the dealer drawing to the end
+	GAME_ASSESSMENT;       // gameAssessment
+}
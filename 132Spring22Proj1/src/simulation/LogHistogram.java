@@ -0,0 +1,95 @@
+package simulation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * A LogHistogram counts long values in buckets whose width doubles with the
+ * distance from zero, so any value from Long.MIN_VALUE to Long.MAX_VALUE
+ * fits in 128 buckets and recording is one adder increment.
+ *
+ * Bucket ZERO holds 0. Bucket ZERO + k holds the positive values from
+ * 2^(k-1) to 2^k - 1, and bucket ZERO - k the negative values from -(2^k - 1)
+ * to -2^(k-1). The counts are LongAdders, so many threads can record at once
+ * without contending, and getCounts can be called while they do.
+ */
+public class LogHistogram {
+
+	public static final int ZERO = 64;
+	public static final int BUCKETS = 2 * ZERO;
+
+	private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+	public LogHistogram() {
+		for(int i = 0; i < BUCKETS; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	public void record(long value) {
+		counts[bucket(value)].increment();
+	}
+
+	/* returns a copy of the count in every bucket. Each count is exact, but
+	 * values recorded while the copy is taken may be in some buckets and not
+	 * in others */
+	public long[] getCounts() {
+		long[] copy = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts[i].sum();
+		}
+		return copy;
+	}
+
+	/* returns the bucket a value is counted in */
+	public static int bucket(long value) {
+		if(value >= 0) {
+			return ZERO + 64 - Long.numberOfLeadingZeros(value);
+		}
+		// -Long.MIN_VALUE overflows back to itself, which still lands in
+		// the last negative bucket
+		return ZERO - (64 - Long.numberOfLeadingZeros(-value));
+	}
+
+	/* returns the smallest value counted in the bucket */
+	public static long lowerBound(int bucket) {
+		if(bucket == ZERO) {
+			return 0;
+		} else if(bucket > ZERO) {
+			return 1L << (bucket - ZERO - 1);
+		}
+		int k = ZERO - bucket;
+		return k == 64 ? Long.MIN_VALUE : -((1L << k) - 1);
+	}
+
+	/* returns the largest value counted in the bucket */
+	public static long upperBound(int bucket) {
+		if(bucket == ZERO) {
+			return 0;
+		} else if(bucket < ZERO) {
+			return -(1L << (ZERO - bucket - 1));
+		}
+		// for the last bucket this overflows to Long.MAX_VALUE
+		return (1L << (bucket - ZERO)) - 1;
+	}
+
+	/* returns an upper bound on the given fraction (0 to 1) of the values
+	 * counted in a copy from getCounts, or 0 if it is empty */
+	public static long quantile(long[] counts, double fraction) {
+		long total = 0;
+		for(long count: counts) {
+			total += count;
+		}
+		if(total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= rank && seen > 0) {
+				return upperBound(i);
+			}
+		}
+		return upperBound(counts.length - 1);
+	}
+}
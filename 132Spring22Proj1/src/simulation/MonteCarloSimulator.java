@@ -0,0 +1,211 @@
+package simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+import blackjack.BlackjackModel;
+import blackjack.GameResult;
+import blackjack.HandState;
+import blackjack.Rules;
+import deckOfCards.Card;
+import deckOfCards.Shoe;
+import history.HandJournal;
+
+/*
+ * A MonteCarloSimulator plays a large number of hands with BlackjackModel and
+ * no GUI, splitting the work across a fork/join pool.
+ *
+ * The hands are split into fixed-size chunks by a recursive halving that does
+ * not depend on the number of threads. Every split also splits the random
+ * number generator, so each chunk gets its own stream and the totals for a
+ * given seed are the same no matter how many threads take part.
+ */
+public class MonteCarloSimulator {
+
+	// the number of hands a single task plays before it stops splitting
+	private static final long CHUNK_SIZE = 1 << 14;
+
+	/* a round never uses more than this many cards, so this many must stay
+	 * behind the cut card */
+	private static final int MAX_CARDS_PER_ROUND = 24;
+
+	private final Rules rules;
+	private final int cutCardPosition;
+	private final PlayerStrategy strategy;
+
+	/* creates a simulator that deals from a shoe of numberOfDecks decks with
+	 * the cut card at cutCardPosition, and plays the player's hands with the
+	 * given strategy under the default rules */
+	public MonteCarloSimulator(int numberOfDecks, int cutCardPosition,
+			PlayerStrategy strategy) {
+		this(Rules.DEFAULT.withNumberOfDecks(numberOfDecks), cutCardPosition,
+				strategy);
+	}
+
+	/* creates a simulator that plays by the given rules, dealing from a shoe
+	 * of the rules' number of decks with the cut card at cutCardPosition */
+	public MonteCarloSimulator(Rules rules, int cutCardPosition,
+			PlayerStrategy strategy) {
+		// Rules has already checked the number of decks
+		int numberOfDecks = rules.getNumberOfDecks();
+		if(cutCardPosition < 1) {
+			throw new IllegalArgumentException("cut card position "
+					+ cutCardPosition + " is in front of the shoe");
+		}
+		if(numberOfDecks * Card.NUMBER_OF_CARDS - cutCardPosition
+				< MAX_CARDS_PER_ROUND) {
+			throw new IllegalArgumentException("the cut card must leave at "
+					+ "least " + MAX_CARDS_PER_ROUND + " cards behind it");
+		}
+		this.rules = rules;
+		this.cutCardPosition = cutCardPosition;
+		this.strategy = strategy;
+	}
+
+	/* plays the given number of hands on the common fork/join pool */
+	public SimulationResult run(long hands, long seed) {
+		return run(hands, seed, ForkJoinPool.commonPool());
+	}
+
+	/* plays the given number of hands on the given pool */
+	public SimulationResult run(long hands, long seed, ForkJoinPool pool) {
+		return run(hands, seed, pool, null);
+	}
+
+	/* plays the given number of hands on the given pool and, unless journal
+	 * is null, appends every round to the journal. The rounds of different
+	 * chunks are interleaved in the journal in whatever order they finish */
+	public SimulationResult run(long hands, long seed, ForkJoinPool pool,
+			HandJournal journal) {
+		return run(hands, seed, pool, journal, null);
+	}
+
+	/* plays the given number of hands on the given pool, appending every
+	 * round to the journal and counting it in statistics unless they are
+	 * null. Each chunk of hands is one bankroll in the statistics, betting
+	 * the rules' payout scale so that every payout is a whole number */
+	public SimulationResult run(long hands, long seed, ForkJoinPool pool,
+			HandJournal journal, OutcomeStatistics statistics) {
+		long start = System.nanoTime();
+		SimulationResult result = pool.invoke(new HandsTask(0, hands,
+				new SplittableRandom(seed), journal, statistics));
+		return result.withElapsedNanos(System.nanoTime() - start);
+	}
+
+	/* plays one round the way BlackjackGUI does: the dealer gets two cards,
+	 * the player gets two cards and hits until the strategy stops or the hand
+	 * busts, and then the dealer plays out the hand */
+	static GameResult playRound(BlackjackModel game, RandomGenerator random,
+			PlayerStrategy strategy) {
+		game.createAndShuffleDeck(random);
+		game.initialDealerCards();
+		game.initialPlayerCards();
+		Card upcard = game.getDealerUpcard();
+		int playerState = game.getPlayerState();
+		while(HandState.hardTotal(playerState) <= 21
+				&& strategy.shouldHit(playerState, upcard)) {
+			game.playerTakeCard();
+			playerState = game.getPlayerState();
+		}
+		game.playDealerHand();
+		return game.gameAssessment();
+	}
+
+	/* plays the hands numbered from (inclusive) to to (exclusive) */
+	private class HandsTask extends RecursiveTask<SimulationResult> {
+
+		private static final long serialVersionUID = 0L;
+
+		private final long from;
+		private final long to;
+		private final SplittableRandom random;
+		private final HandJournal journal;
+		private final OutcomeStatistics statistics;
+
+		HandsTask(long from, long to, SplittableRandom random,
+				HandJournal journal, OutcomeStatistics statistics) {
+			this.from = from;
+			this.to = to;
+			this.random = random;
+			this.journal = journal;
+			this.statistics = statistics;
+		}
+
+		@Override
+		protected SimulationResult compute() {
+			if(to - from <= CHUNK_SIZE) {
+				return playChunk();
+			}
+			long middle = from + (to - from) / 2;
+			HandsTask left = new HandsTask(from, middle, random.split(), journal,
+					statistics);
+			HandsTask right = new HandsTask(middle, to, random, journal,
+					statistics);
+			left.fork();
+			SimulationResult rightResult = right.compute();
+			return left.join().add(rightResult);
+		}
+
+		private SimulationResult playChunk() {
+			// every round of the chunk is journaled with this seed; it names
+			// the chunk, and the cards recorded with a round are what rebuild it
+			long chunkSeed = random.nextLong();
+			Random shuffler = new Random(chunkSeed);
+			BlackjackModel game = new BlackjackModel(rules,
+					new Shoe(rules.getNumberOfDecks(), cutCardPosition));
+			long[] counts = new long[GameResult.values().length];
+			long net = 0;
+			OutcomeStatistics.Bankroll bankroll = statistics == null ? null
+					: statistics.openBankroll();
+			for(long hand = from; hand < to; hand++) {
+				GameResult result = playRound(game, shuffler, strategy);
+				counts[result.ordinal()]++;
+				int units = rules.getPayoutUnits(result);
+				net += units;
+				if(statistics != null) {
+					statistics.record(HandState.bestTotal(game.getPlayerState()),
+							game.getDealerUpcard().getRank().getValue(), result);
+					bankroll.record(units);
+				}
+				if(journal != null) {
+					try {
+						journal.append(chunkSeed, 1, game, result);
+					} catch(IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			}
+			if(bankroll != null) {
+				bankroll.close();
+			}
+			return new SimulationResult(counts, net, rules.getPayoutScale(), 0);
+		}
+	}
+
+	/* runs a simulation from the command line:
+	 * MonteCarloSimulator [hands] [seed] [decks] [journal directory] */
+	public static void main(String[] args) throws IOException {
+		long hands = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 132L;
+		int decks = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+		MonteCarloSimulator simulator = new MonteCarloSimulator(decks,
+				decks * Card.NUMBER_OF_CARDS * 3 / 4, PlayerStrategy.MIMIC_DEALER);
+		OutcomeStatistics statistics = new OutcomeStatistics();
+		if(args.length > 3) {
+			try(HandJournal journal = new HandJournal(Paths.get(args[3]))) {
+				System.out.println(simulator.run(hands, seed,
+						ForkJoinPool.commonPool(), journal, statistics));
+			}
+		} else {
+			System.out.println(simulator.run(hands, seed,
+					ForkJoinPool.commonPool(), null, statistics));
+		}
+		System.out.println(statistics.snapshot());
+	}
+}
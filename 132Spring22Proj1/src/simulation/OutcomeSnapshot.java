@@ -0,0 +1,82 @@
+package simulation;
+
+import blackjack.GameResult;
+
+/*
+ * A copy of the counters and histograms of an OutcomeStatistics, taken by
+ * OutcomeStatistics.snapshot. Histograms are bucket counts in the layout of
+ * LogHistogram.
+ */
+public class OutcomeSnapshot {
+
+	private static final GameResult[] RESULTS = GameResult.values();
+
+	private final long[] counts;
+	private final long[] bankrolls;
+	private final long[] drawdowns;
+	private final long[] maxDrawdowns;
+
+	OutcomeSnapshot(long[] counts, long[] bankrolls, long[] drawdowns,
+			long[] maxDrawdowns) {
+		this.counts = counts;
+		this.bankrolls = bankrolls;
+		this.drawdowns = drawdowns;
+		this.maxDrawdowns = maxDrawdowns;
+	}
+
+	/* returns the number of rounds with the given final player total, dealer
+	 * upcard value (1 for an ace) and result */
+	public long getCount(int playerTotal, int dealerUpcard, GameResult result) {
+		return counts[OutcomeStatistics.cell(playerTotal, dealerUpcard, result)];
+	}
+
+	/* returns the number of rounds that ended in the given result */
+	public long getCount(GameResult result) {
+		long total = 0;
+		for(int i = result.ordinal(); i < counts.length; i += RESULTS.length) {
+			total += counts[i];
+		}
+		return total;
+	}
+
+	/* returns the number of rounds counted */
+	public long getRounds() {
+		long total = 0;
+		for(long count: counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	/* returns the bucket counts of the bankroll after every round */
+	public long[] getBankrollHistogram() {
+		return bankrolls.clone();
+	}
+
+	/* returns the bucket counts of the drawdown after every round */
+	public long[] getDrawdownHistogram() {
+		return drawdowns.clone();
+	}
+
+	/* returns the bucket counts of the largest drawdown of each closed
+	 * bankroll */
+	public long[] getMaxDrawdownHistogram() {
+		return maxDrawdowns.clone();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(String.format("%,d rounds",
+				getRounds()));
+		for(GameResult result: RESULTS) {
+			text.append(String.format(", %s %,d", result, getCount(result)));
+		}
+		text.append(String.format("%ndrawdown p50 <= %,d, p99 <= %,d; "
+				+ "worst drawdown p50 <= %,d, p99 <= %,d",
+				LogHistogram.quantile(drawdowns, 0.5),
+				LogHistogram.quantile(drawdowns, 0.99),
+				LogHistogram.quantile(maxDrawdowns, 0.5),
+				LogHistogram.quantile(maxDrawdowns, 0.99)));
+		return text.toString();
+	}
+}
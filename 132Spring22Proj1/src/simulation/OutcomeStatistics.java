@@ -0,0 +1,117 @@
+package simulation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import blackjack.GameResult;
+
+/*
+ * OutcomeStatistics collects the outcome of every round played, simulated
+ * or live, from any number of threads at once.
+ *
+ * Results are counted by the player's final total, the dealer's upcard and
+ * the GameResult, one LongAdder per combination, so threads that finish
+ * rounds at the same moment update separate cells of the adder instead of
+ * fighting over one counter.
+ *
+ * Each producer that plays a sequence of rounds with its own bankroll opens
+ * a Bankroll and reports every round's winnings to it. The bankrolls feed
+ * three LogHistograms shared by all producers: the bankroll after every
+ * round (relative to where it started), the drawdown from its highest point
+ * after every round, and the largest drawdown of every closed Bankroll.
+ *
+ * snapshot can be called at any time without stopping the producers.
+ */
+public class OutcomeStatistics {
+
+	// player totals from 0 to 31 cover every hand; higher ones share 31
+	public static final int TOTALS = 32;
+
+	// upcard values run from 1 (ace) to 10
+	public static final int UPCARDS = 11;
+
+	private static final int RESULTS = GameResult.values().length;
+
+	private final LongAdder[] counts = new LongAdder[TOTALS * UPCARDS * RESULTS];
+	private final LogHistogram bankrolls = new LogHistogram();
+	private final LogHistogram drawdowns = new LogHistogram();
+	private final LogHistogram maxDrawdowns = new LogHistogram();
+
+	public OutcomeStatistics() {
+		for(int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/* counts one finished round */
+	public void record(int playerTotal, int dealerUpcard, GameResult result) {
+		counts[cell(Math.min(playerTotal, TOTALS - 1), dealerUpcard, result)]
+				.increment();
+	}
+
+	/* starts following one producer's bankroll. The Bankroll must only be
+	 * used by one thread at a time */
+	public Bankroll openBankroll() {
+		return new Bankroll();
+	}
+
+	/* copies every counter and histogram. Each number is exact at the moment
+	 * it was read, but rounds recorded while the copy is taken may show up in
+	 * some numbers and not yet in others */
+	public OutcomeSnapshot snapshot() {
+		long[] copy = new long[counts.length];
+		for(int i = 0; i < counts.length; i++) {
+			copy[i] = counts[i].sum();
+		}
+		return new OutcomeSnapshot(copy, bankrolls.getCounts(),
+				drawdowns.getCounts(), maxDrawdowns.getCounts());
+	}
+
+	static int cell(int playerTotal, int dealerUpcard, GameResult result) {
+		return (playerTotal * UPCARDS + dealerUpcard) * RESULTS + result.ordinal();
+	}
+
+	/*
+	 * The bankroll of one producer, such as a simulation chunk or a table.
+	 * It only keeps three longs of its own and records into the shared
+	 * histograms.
+	 */
+	public class Bankroll implements AutoCloseable {
+
+		private long bankroll;
+		private long peak;
+		private long maxDrawdown;
+		private boolean closed;
+
+		private Bankroll() {
+		}
+
+		/* adds one round's net winnings (negative for a loss) */
+		public void record(long winnings) {
+			bankroll += winnings;
+			peak = Math.max(peak, bankroll);
+			long drawdown = peak - bankroll;
+			maxDrawdown = Math.max(maxDrawdown, drawdown);
+			bankrolls.record(bankroll);
+			drawdowns.record(drawdown);
+		}
+
+		/* returns the winnings so far */
+		public long getBankroll() {
+			return bankroll;
+		}
+
+		/* returns the largest fall from a high point so far */
+		public long getMaxDrawdown() {
+			return maxDrawdown;
+		}
+
+		/* records the largest drawdown of the finished trajectory */
+		@Override
+		public void close() {
+			if(!closed) {
+				closed = true;
+				maxDrawdowns.record(maxDrawdown);
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package simulation;
+
+import blackjack.HandState;
+import deckOfCards.Card;
+
+/*
+ * A PlayerStrategy decides whether the player takes another card. It sees the
+ * player's hand as a packed HandState and the dealer's face-up card, which is
+ * everything the player can see at the table.
+ */
+public interface PlayerStrategy {
+
+	/* plays the player's hand by the same rule the dealer follows: take a card
+	 * on 16 or less and on a soft 17 */
+	PlayerStrategy MIMIC_DEALER = (playerState, dealerUpcard) ->
+			HandState.dealerShouldTakeCard(playerState);
+
+	/* returns true if the player should take another card */
+	boolean shouldHit(int playerState, Card dealerUpcard);
+}
@@ -0,0 +1,94 @@
+package simulation;
+
+import blackjack.GameResult;
+
+/*
+ * The totals from a simulation run. Results from separate parts of a run are
+ * combined with add, which is exact, so the totals do not depend on how the
+ * run was split up.
+ */
+public class SimulationResult {
+
+	// the number of hands that ended in each GameResult, indexed by ordinal
+	private final long[] counts;
+
+	/* the player's net winnings in the payout units of the Rules the hands
+	 * were played by, so the sum stays an exact integer */
+	private final long netUnits;
+
+	// the number of payout units a bet of one is worth
+	private final int payoutScale;
+
+	// wall clock time of the run, or 0 for a partial result
+	private final long elapsedNanos;
+
+	SimulationResult(long[] counts, long netUnits, int payoutScale,
+			long elapsedNanos) {
+		this.counts = counts;
+		this.netUnits = netUnits;
+		this.payoutScale = payoutScale;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/* combines this partial result with another one */
+	SimulationResult add(SimulationResult other) {
+		long[] sum = new long[counts.length];
+		for(int i = 0; i < sum.length; i++) {
+			sum[i] = counts[i] + other.counts[i];
+		}
+		return new SimulationResult(sum, netUnits + other.netUnits, payoutScale,
+				0);
+	}
+
+	/* returns a copy of this result that records how long the run took */
+	SimulationResult withElapsedNanos(long nanos) {
+		return new SimulationResult(counts, netUnits, payoutScale, nanos);
+	}
+
+	public long getHands() {
+		long hands = 0;
+		for(long count: counts) {
+			hands += count;
+		}
+		return hands;
+	}
+
+	public long getCount(GameResult result) {
+		return counts[result.ordinal()];
+	}
+
+	/* returns the fraction of hands that ended in the given result */
+	public double getFrequency(GameResult result) {
+		long hands = getHands();
+		return hands == 0 ? 0 : (double) counts[result.ordinal()] / hands;
+	}
+
+	/* returns the player's average net winnings per unit bet. A negative
+	 * value is the house edge */
+	public double getExpectedReturn() {
+		long hands = getHands();
+		return hands == 0 ? 0 : (double) netUnits / payoutScale / hands;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getHandsPerSecond() {
+		return elapsedNanos == 0 ? 0 : getHands() * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append(String.format("%,d hands in %.2f s (%,.0f hands/s)%n",
+				getHands(), elapsedNanos / 1e9, getHandsPerSecond()));
+		for(GameResult result: GameResult.values()) {
+			text.append(String.format("  %-17s %8.4f%%%n", result,
+					100 * getFrequency(result)));
+		}
+		text.append(String.format("  expected return   %+8.4f%%",
+				100 * getExpectedReturn()));
+		return text.toString();
+	}
+}
@@ -0,0 +1,180 @@
+package strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import blackjack.HandState;
+import blackjack.Rules;
+
+/*
+ * BasicStrategySolver computes exact hit/stand expected values for a shoe of
+ * a given number of decks by enumerating every card the player and dealer
+ * could draw, rather than sampling.
+ *
+ * Every starting deal (dealer upcard and two player cards) is solved as its
+ * own fork/join task. Within a deal the cards the player has drawn are known
+ * from what is left in the shoe, so player values are memoized by the
+ * packed remaining-shoe Composition, one table per upcard, and shared
+ * between the tasks. Dealer distributions come from a DealerOutcomeService,
+ * which caches them by the same key.
+ *
+ * The rules are the ones BlackjackModel plays under the Rules of the
+ * DealerOutcomeService: the dealer follows its dealer rule, a natural pays
+ * its blackjack payout unless the dealer also has one, and a dealer
+ * natural pushes against any player 21 (the dealer does not peek).
+ */
+public class BasicStrategySolver {
+
+	// enough room for every dealer distribution an 8 deck solve asks for
+	private static final int DEFAULT_CACHE_SIZE = 1 << 17;
+
+	private final long fullShoe;
+	private final DealerOutcomeService dealerOutcomes;
+
+	/* player memo tables for the current solve, indexed by upcard value - 1 */
+	private List<ConcurrentHashMap<Long, Double>> playerMemo;
+
+	/* creates a solver for a shoe of numberOfDecks decks */
+	public BasicStrategySolver(int numberOfDecks) {
+		this(Rules.DEFAULT.withNumberOfDecks(numberOfDecks));
+	}
+
+	/* creates a solver for a shoe dealt under the given rules */
+	public BasicStrategySolver(Rules rules) {
+		this(rules.getNumberOfDecks(),
+				new DealerOutcomeService(DEFAULT_CACHE_SIZE, rules));
+	}
+
+	/* creates a solver for a shoe of numberOfDecks decks that gets dealer
+	 * outcomes from the given service, so its cache can be shared */
+	public BasicStrategySolver(int numberOfDecks,
+			DealerOutcomeService dealerOutcomes) {
+		fullShoe = Composition.ofDecks(numberOfDecks);
+		this.dealerOutcomes = dealerOutcomes;
+	}
+
+	/* solves every starting deal on the common fork/join pool */
+	public StrategyChart solve() {
+		return solve(ForkJoinPool.commonPool());
+	}
+
+	/* solves every starting deal on the given pool */
+	public synchronized StrategyChart solve(ForkJoinPool pool) {
+		playerMemo = new ArrayList<>(10);
+		for(int i = 0; i < 10; i++) {
+			playerMemo.add(new ConcurrentHashMap<>());
+		}
+		List<StartingDeal> deals = new ArrayList<>();
+		for(int upcard = 1; upcard <= 10; upcard++) {
+			for(int first = 1; first <= 10; first++) {
+				for(int second = first; second <= 10; second++) {
+					deals.add(new StartingDeal(upcard, first, second));
+				}
+			}
+		}
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 0L;
+
+			@Override
+			protected void compute() {
+				invokeAll(deals);
+			}
+		});
+		StrategyChart chart = summarize(deals);
+		playerMemo = null;
+		return chart;
+	}
+
+	/* averages the solved deals into chart rows and sums the house edge */
+	private static StrategyChart summarize(List<StartingDeal> deals) {
+		double[][] standEv = new double[StrategyChart.ROWS][10];
+		double[][] hitEv = new double[StrategyChart.ROWS][10];
+		double[][] weight = new double[StrategyChart.ROWS][10];
+		double playerReturn = 0;
+		for(StartingDeal deal: deals) {
+			playerReturn += deal.probability * deal.bestEv;
+			if(deal.row >= 0) {
+				int column = deal.upcard - 1;
+				standEv[deal.row][column] += deal.probability * deal.standEv;
+				hitEv[deal.row][column] += deal.probability * deal.hitEv;
+				weight[deal.row][column] += deal.probability;
+			}
+		}
+		for(int row = 0; row < StrategyChart.ROWS; row++) {
+			for(int column = 0; column < 10; column++) {
+				standEv[row][column] /= weight[row][column];
+				hitEv[row][column] /= weight[row][column];
+			}
+		}
+		return new StrategyChart(standEv, hitEv, -playerReturn);
+	}
+
+	/* one dealer upcard and unordered pair of player cards */
+	private class StartingDeal extends RecursiveAction {
+
+		private static final long serialVersionUID = 0L;
+
+		final int upcard;
+		final int row;
+		final double probability;
+		double standEv;
+		double hitEv;
+		double bestEv;
+
+		private final int first;
+		private final int second;
+
+		StartingDeal(int upcard, int first, int second) {
+			this.upcard = upcard;
+			this.first = first;
+			this.second = second;
+			int state = HandState.addValue(HandState.addValue(HandState.EMPTY,
+					first), second);
+			boolean natural = HandState.bestTotal(state) == 21;
+			row = natural ? -1 : StrategyChart.row(HandState.bestTotal(state),
+					HandState.isSoft(state));
+
+			// the chance of being dealt exactly these three cards
+			long shoe = fullShoe;
+			double p = (double) Composition.count(shoe, upcard)
+					/ Composition.total(shoe);
+			shoe = Composition.remove(shoe, upcard);
+			p *= (double) Composition.count(shoe, first) / Composition.total(shoe);
+			shoe = Composition.remove(shoe, first);
+			p *= (double) Composition.count(shoe, second) / Composition.total(shoe);
+			probability = first == second ? p : 2 * p;
+		}
+
+		@Override
+		protected void compute() {
+			long remaining = Composition.remove(Composition.remove(
+					Composition.remove(fullShoe, upcard), first), second);
+			int state = HandState.addValue(HandState.addValue(HandState.EMPTY,
+					first), second);
+			PlayerEv player = new PlayerEv(dealerOutcomes, upcard,
+					playerMemo.get(upcard - 1));
+			if(row < 0) {
+				standEv = player.naturalStandEv(remaining);
+				hitEv = player.hitEv(state, remaining);
+				bestEv = standEv;
+			} else {
+				standEv = player.standEv(state, remaining);
+				hitEv = player.hitEv(state, remaining);
+				bestEv = Math.max(standEv, hitEv);
+			}
+		}
+	}
+
+	/* prints the chart for a shoe: BasicStrategySolver [decks] */
+	public static void main(String[] args) {
+		int decks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+		long start = System.nanoTime();
+		StrategyChart chart = new BasicStrategySolver(decks).solve();
+		System.out.println(chart);
+		System.out.printf("solved %d deck(s) in %.2f s%n", decks,
+				(System.nanoTime() - start) / 1e9);
+	}
+}
@@ -0,0 +1,64 @@
+package strategy;
+
+/*
+ * Composition packs the number of cards of each Blackjack value left in a
+ * shoe into one long, so it can be used directly as a cache key.
+ *
+ * Values 1 (ace) through 9 get 6 bits each and value 10 (ten and face cards)
+ * gets the top 8 bits, which is enough for up to MAX_DECKS decks.
+ */
+public final class Composition {
+
+	// the largest number of decks a composition can describe
+	public static final int MAX_DECKS = 15;
+
+	private static final int TEN_SHIFT = 54;
+
+	private Composition() {
+	}
+
+	/* returns the composition of numberOfDecks full decks */
+	public static long ofDecks(int numberOfDecks) {
+		if(numberOfDecks < 1 || numberOfDecks > MAX_DECKS) {
+			throw new IllegalArgumentException("a composition can describe 1 "
+					+ "to " + MAX_DECKS + " decks, not " + numberOfDecks);
+		}
+		long composition = 0;
+		for(int value = 1; value <= 9; value++) {
+			composition = add(composition, value, 4 * numberOfDecks);
+		}
+		return add(composition, 10, 16 * numberOfDecks);
+	}
+
+	/* returns the number of cards with the given value (1 to 10) */
+	public static int count(long composition, int value) {
+		if(value == 10) {
+			return (int) (composition >>> TEN_SHIFT);
+		}
+		return (int) (composition >>> shift(value)) & 0x3F;
+	}
+
+	/* returns the composition with amount more cards of the given value */
+	public static long add(long composition, int value, int amount) {
+		return composition + ((long) amount << shift(value));
+	}
+
+	/* returns the composition with one card of the given value taken out.
+	 * The caller must make sure there is such a card */
+	public static long remove(long composition, int value) {
+		return composition - (1L << shift(value));
+	}
+
+	/* returns the total number of cards in the composition */
+	public static int total(long composition) {
+		int total = 0;
+		for(int value = 1; value <= 10; value++) {
+			total += count(composition, value);
+		}
+		return total;
+	}
+
+	private static int shift(int value) {
+		return value == 10 ? TEN_SHIFT : 6 * (value - 1);
+	}
+}
@@ -0,0 +1,98 @@
+package strategy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * A bounded, thread-safe cache keyed by a packed long such as a Composition.
+ *
+ * The entries are spread over independently locked segments, so threads
+ * looking up different keys rarely wait on each other. Each segment keeps
+ * its entries in access order and evicts the least recently used one once
+ * it is full.
+ */
+public class CompositionCache<V> {
+
+	private final Segment<V>[] segments;
+	private final int segmentShift;
+
+	/* creates a cache that holds about maximumEntries values */
+	@SuppressWarnings("unchecked")
+	public CompositionCache(int maximumEntries) {
+		if(maximumEntries < 1) {
+			throw new IllegalArgumentException("a cache must hold at least "
+					+ "one entry");
+		}
+		int count = Integer.highestOneBit(Math.max(1,
+				Math.min(Runtime.getRuntime().availableProcessors() * 4,
+						maximumEntries / 16)));
+		segments = (Segment<V>[]) new Segment<?>[count];
+		int perSegment = Math.max(1, maximumEntries / count);
+		for(int i = 0; i < count; i++) {
+			segments[i] = new Segment<>(perSegment);
+		}
+		segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+	}
+
+	/* returns the cached value, or null if there is none */
+	public V get(long key) {
+		Segment<V> segment = segmentFor(key);
+		synchronized(segment) {
+			return segment.get(key);
+		}
+	}
+
+	/* stores a value, evicting the least recently used entry of its segment
+	 * if the segment is full */
+	public void put(long key, V value) {
+		Segment<V> segment = segmentFor(key);
+		synchronized(segment) {
+			segment.put(key, value);
+		}
+	}
+
+	/* returns the number of cached values */
+	public int size() {
+		int size = 0;
+		for(Segment<V> segment: segments) {
+			synchronized(segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/* removes every cached value */
+	public void clear() {
+		for(Segment<V> segment: segments) {
+			synchronized(segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	private Segment<V> segmentFor(long key) {
+		if(segments.length == 1) {
+			return segments[0];
+		}
+		// spread the key's bits so that nearby compositions use different segments
+		return segments[(int) ((key * 0x9E3779B97F4A7C15L) >>> segmentShift)];
+	}
+
+	private static class Segment<V> extends LinkedHashMap<Long, V> {
+
+		private static final long serialVersionUID = 0L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+			return size() > capacity;
+		}
+	}
+}
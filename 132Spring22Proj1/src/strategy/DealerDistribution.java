@@ -0,0 +1,38 @@
+package strategy;
+
+/*
+ * The probability of each way the dealer's hand can finish. Instances are
+ * immutable, so they can be cached and shared between threads.
+ */
+public class DealerDistribution {
+
+	// the probability of each DealerOutcome, indexed by ordinal
+	final double[] probabilities;
+
+	DealerDistribution(double[] probabilities) {
+		this.probabilities = probabilities;
+	}
+
+	/* returns the probability that the dealer's hand finishes this way */
+	public double getProbability(DealerOutcome outcome) {
+		return probabilities[outcome.ordinal()];
+	}
+
+	/* returns a copy of the probabilities, indexed by DealerOutcome ordinal */
+	public double[] toArray() {
+		return probabilities.clone();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder("{");
+		for(DealerOutcome outcome: DealerOutcome.values()) {
+			if(text.length() > 1) {
+				text.append(", ");
+			}
+			text.append(outcome).append('=').append(String.format("%.6f",
+					probabilities[outcome.ordinal()]));
+		}
+		return text.append('}').toString();
+	}
+}
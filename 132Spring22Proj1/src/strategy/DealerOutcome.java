@@ -0,0 +1,22 @@
+package strategy;
+
+/**
+ * The ways a dealer's hand can finish under
+ * {@code BlackjackModel.dealerShouldTakeCard}.
+ */
+public enum DealerOutcome {
+	SEVENTEEN, EIGHTEEN, NINETEEN, TWENTY, TWENTY_ONE,
+	BLACKJACK,                // 21 with the first two cards
+	BUST;
+
+	/**
+	 * Returns the total a finished dealer hand compares with.
+	 * @return 17 to 21, 21 for a blackjack, or 0 for a bust
+	 */
+	public int getTotal() {
+		if (this == BUST) {
+			return 0;
+		}
+		return this == BLACKJACK ? 21 : 17 + ordinal();
+	}
+}
@@ -0,0 +1,84 @@
+package strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import blackjack.Rules;
+import deckOfCards.Card;
+
+/*
+ * DealerOutcomeService answers "how will the dealer's hand finish?" for a
+ * dealer upcard and the composition of the cards the player has not seen
+ * yet (the dealer's hole card is still among them).
+ *
+ * The answers are exact and follow the dealer rule of the service's Rules,
+ * as BlackjackModel.dealerShouldTakeCard does.
+ * Each answer is kept in a bounded cache keyed by the packed Composition, so
+ * a repeated question is a cache lookup instead of a fresh walk over every
+ * card the dealer could draw.
+ */
+public class DealerOutcomeService {
+
+	// one cache per upcard value, indexed by value - 1
+	private final List<CompositionCache<DealerDistribution>> caches;
+	private final Rules rules;
+
+	/* creates a service for the default rules whose cache holds about
+	 * maximumEntries answers */
+	public DealerOutcomeService(int maximumEntries) {
+		this(maximumEntries, Rules.DEFAULT);
+	}
+
+	/* creates a service for a dealer playing by the given rules whose cache
+	 * holds about maximumEntries answers */
+	public DealerOutcomeService(int maximumEntries, Rules rules) {
+		this.rules = rules;
+		caches = new ArrayList<>(10);
+		for(int value = 1; value <= 10; value++) {
+			caches.add(new CompositionCache<>(Math.max(1, maximumEntries / 10)));
+		}
+	}
+
+	/* returns the rules the dealer plays by */
+	public Rules getRules() {
+		return rules;
+	}
+
+	/* returns the dealer's outcome distribution for a dealer showing upcard */
+	public DealerDistribution distribution(Card upcard, long unseen) {
+		return distribution(upcard.getRank().getValue(), unseen);
+	}
+
+	/* returns the dealer's outcome distribution for a dealer showing a card
+	 * of upcardValue (1 for an ace, 10 for tens and face cards) when the
+	 * unseen composition holds the hole card and every card the dealer
+	 * might draw. Throws IllegalArgumentException if the composition can run
+	 * out before the dealer stands */
+	public DealerDistribution distribution(int upcardValue, long unseen) {
+		if(upcardValue < 1 || upcardValue > 10) {
+			throw new IllegalArgumentException("no card has the value "
+					+ upcardValue);
+		}
+		if(Composition.total(unseen) == 0) {
+			throw new IllegalArgumentException("the dealer has no cards left "
+					+ "to draw");
+		}
+		CompositionCache<DealerDistribution> cache = caches.get(upcardValue - 1);
+		DealerDistribution distribution = cache.get(unseen);
+		if(distribution == null) {
+			distribution = new DealerDistribution(
+					DealerProbabilities.distribution(upcardValue, unseen, rules));
+			cache.put(unseen, distribution);
+		}
+		return distribution;
+	}
+
+	/* returns the number of cached answers */
+	public int size() {
+		int size = 0;
+		for(CompositionCache<DealerDistribution> cache: caches) {
+			size += cache.size();
+		}
+		return size;
+	}
+}
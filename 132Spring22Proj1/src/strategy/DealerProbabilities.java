@@ -0,0 +1,79 @@
+package strategy;
+
+import java.util.HashMap;
+
+import blackjack.HandState;
+import blackjack.Rules;
+
+/*
+ * Computes the exact distribution of the dealer's final outcome by walking
+ * every card the dealer could draw, following the dealer rule of a Rules,
+ * which is the one BlackjackModel.dealerShouldTakeCard uses.
+ */
+class DealerProbabilities {
+
+	private static final DealerOutcome[] OUTCOME_VALUES = DealerOutcome.values();
+	private static final int OUTCOMES = OUTCOME_VALUES.length;
+
+	private DealerProbabilities() {
+	}
+
+	/* returns the probability of each DealerOutcome, indexed by ordinal, for
+	 * a dealer showing upcardValue whose hole card and hits come from the
+	 * remaining composition and who draws by the given rules. Throws
+	 * IllegalArgumentException if some way of drawing runs the composition
+	 * out before the dealer stands, rather than return probabilities that
+	 * do not add up to 1 */
+	static double[] distribution(int upcardValue, long remaining, Rules rules) {
+		/* within one walk the composition alone tells which cards the dealer
+		 * holds, so it is enough to key the memo on it */
+		HashMap<Long, double[]> memo = new HashMap<>();
+		return walk(HandState.addValue(HandState.EMPTY, upcardValue),
+				remaining, rules, memo);
+	}
+
+	private static double[] walk(int dealerState, long remaining, Rules rules,
+			HashMap<Long, double[]> memo) {
+		double[] result = memo.get(remaining);
+		if(result != null) {
+			return result;
+		}
+		result = new double[OUTCOMES];
+		int total = Composition.total(remaining);
+		if(total == 0) {
+			throw new IllegalArgumentException("the cards run out before the "
+					+ "dealer stands");
+		}
+		for(int value = 1; value <= 10; value++) {
+			int count = Composition.count(remaining, value);
+			if(count == 0) {
+				continue;
+			}
+			double probability = (double) count / total;
+			int next = HandState.addValue(dealerState, value);
+			if(rules.dealerShouldTakeCard(next)) {
+				double[] after = walk(next, Composition.remove(remaining, value),
+						rules, memo);
+				for(int i = 0; i < OUTCOMES; i++) {
+					result[i] += probability * after[i];
+				}
+			} else {
+				result[finalOutcome(next).ordinal()] += probability;
+			}
+		}
+		memo.put(remaining, result);
+		return result;
+	}
+
+	/* classifies a hand the dealer stands on */
+	static DealerOutcome finalOutcome(int dealerState) {
+		if(HandState.hardTotal(dealerState) > 21) {
+			return DealerOutcome.BUST;
+		}
+		int best = HandState.bestTotal(dealerState);
+		if(best == 21 && HandState.cardCount(dealerState) == 2) {
+			return DealerOutcome.BLACKJACK;
+		}
+		return OUTCOME_VALUES[best - 17];
+	}
+}
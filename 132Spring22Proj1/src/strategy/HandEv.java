@@ -0,0 +1,34 @@
+package strategy;
+
+/*
+ * The expected values of the player's two choices in one situation, per
+ * unit bet. Hitting assumes the player goes on to play perfectly.
+ */
+public class HandEv {
+
+	private final double standEv;
+	private final double hitEv;
+
+	HandEv(double standEv, double hitEv) {
+		this.standEv = standEv;
+		this.hitEv = hitEv;
+	}
+
+	public double getStandEv() {
+		return standEv;
+	}
+
+	public double getHitEv() {
+		return hitEv;
+	}
+
+	/* returns true if hitting is worth more than standing */
+	public boolean shouldHit() {
+		return hitEv > standEv;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("stand %+.3f, hit %+.3f", standEv, hitEv);
+	}
+}
@@ -0,0 +1,89 @@
+package strategy;
+
+import java.util.HashMap;
+import java.util.List;
+
+import blackjack.HandState;
+import deckOfCards.Card;
+import deckOfCards.CountSnapshot;
+
+/*
+ * HandEvaluator works out the exact value of standing and of hitting for a
+ * hand in progress, given the dealer's upcard and every card the player has
+ * not seen (the dealer's hole card is still among them).
+ *
+ * Unlike BasicStrategySolver, which averages over a whole shoe, this answers
+ * for one concrete situation, so it can take the cards already dealt into
+ * account. Dealer distributions come from a DealerOutcomeService and can be
+ * shared with other evaluators and solvers.
+ *
+ * An evaluation can take a moment for a small hand against a large shoe. If
+ * the evaluating thread is interrupted it stops early with a
+ * CancellationException.
+ */
+public class HandEvaluator {
+
+	private final DealerOutcomeService dealerOutcomes;
+
+	public HandEvaluator(DealerOutcomeService dealerOutcomes) {
+		this.dealerOutcomes = dealerOutcomes;
+	}
+
+	/* evaluates the player's cards against the upcard, with the rest of
+	 * numberOfDecks full decks unseen */
+	public HandEv evaluate(List<Card> playerCards, Card upcard,
+			int numberOfDecks) {
+		return evaluate(HandState.of(playerCards), upcard.getRank().getValue(),
+				unseen(numberOfDecks, upcard, playerCards));
+	}
+
+	/* evaluates a packed HandState against an upcard value (1 for an ace)
+	 * with the given cards unseen */
+	public HandEv evaluate(int playerState, int upcardValue, long unseen) {
+		PlayerEv player = new PlayerEv(dealerOutcomes, upcardValue,
+				new HashMap<Long, Double>());
+		double standEv;
+		if(HandState.cardCount(playerState) == 2
+				&& HandState.bestTotal(playerState) == 21) {
+			standEv = player.naturalStandEv(unseen);
+		} else if(HandState.hardTotal(playerState) > 21) {
+			return new HandEv(-1, -1);
+		} else {
+			standEv = player.standEv(playerState, unseen);
+		}
+		return new HandEv(standEv, player.hitEv(playerState, unseen));
+	}
+
+	/* returns the composition of numberOfDecks full decks without the
+	 * dealer's upcard and the player's cards */
+	public static long unseen(int numberOfDecks, Card upcard,
+			List<Card> playerCards) {
+		long unseen = Composition.remove(Composition.ofDecks(numberOfDecks),
+				upcard.getRank().getValue());
+		for(Card card: playerCards) {
+			unseen = Composition.remove(unseen, card.getRank().getValue());
+		}
+		return unseen;
+	}
+
+	/* returns the composition of the cards the player has not seen: the
+	 * ones the deck has left and the hidden cards, which have been dealt
+	 * face down (the dealer's hole card). Unlike unseen(numberOfDecks, ...)
+	 * this is right for a shoe that has already dealt earlier hands */
+	public static long unseen(CountSnapshot remaining, List<Card> hiddenCards) {
+		if(remaining.getNumberOfDecks() > Composition.MAX_DECKS) {
+			throw new IllegalArgumentException("a composition can describe at "
+					+ "most " + Composition.MAX_DECKS + " decks, not "
+					+ remaining.getNumberOfDecks());
+		}
+		long unseen = 0;
+		for(int value = 1; value <= 10; value++) {
+			unseen = Composition.add(unseen, value,
+					remaining.getRemainingWithValue(value));
+		}
+		for(Card card: hiddenCards) {
+			unseen = Composition.add(unseen, card.getRank().getValue(), 1);
+		}
+		return unseen;
+	}
+}
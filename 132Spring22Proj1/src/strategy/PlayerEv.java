@@ -0,0 +1,102 @@
+package strategy;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import blackjack.GameResult;
+import blackjack.HandState;
+
+/*
+ * The player's half of the expected value recursion: the value of standing,
+ * of hitting once and then playing on perfectly, and the better of the two.
+ *
+ * Values are memoized by the composition of the unseen cards. That is only
+ * sound while every hand looked up grew from the same starting hand against
+ * the same upcard, because then the unseen cards decide which cards the
+ * player drew. Callers give each starting point its own memo.
+ *
+ * The recursion stops with a CancellationException if the calling thread is
+ * interrupted, so a caller can abandon a long evaluation.
+ */
+class PlayerEv {
+
+	private static final int BUST = DealerOutcome.BUST.ordinal();
+	private static final int BLACKJACK = DealerOutcome.BLACKJACK.ordinal();
+
+	private final DealerOutcomeService dealerOutcomes;
+	private final int upcard;
+	private final Map<Long, Double> memo;
+	private final double naturalPayout;
+
+	PlayerEv(DealerOutcomeService dealerOutcomes, int upcard,
+			Map<Long, Double> memo) {
+		this.dealerOutcomes = dealerOutcomes;
+		this.naturalPayout = dealerOutcomes.getRules()
+				.getPayout(GameResult.NATURAL_BLACKJACK);
+		this.upcard = upcard;
+		this.memo = memo;
+	}
+
+	/* returns the dealer's outcome distribution with the hole card and hits
+	 * drawn from remaining */
+	double[] dealer(long remaining) {
+		return dealerOutcomes.distribution(upcard, remaining).probabilities;
+	}
+
+	/* returns the expected value of standing on a natural, which is paid
+	 * what the rules say unless the dealer has one too */
+	double naturalStandEv(long remaining) {
+		return naturalPayout * (1 - dealer(remaining)[BLACKJACK]);
+	}
+
+	/* returns the expected value of standing on a hand that is not a
+	 * natural */
+	double standEv(int playerState, long remaining) {
+		double[] dealer = dealer(remaining);
+		int total = HandState.bestTotal(playerState);
+		double ev = dealer[BUST];
+		for(int outcome = 0; outcome < BUST; outcome++) {
+			int dealerTotal = outcome == BLACKJACK ? 21 : 17 + outcome;
+			if(total > dealerTotal) {
+				ev += dealer[outcome];
+			} else if(total < dealerTotal) {
+				ev -= dealer[outcome];
+			}
+		}
+		return ev;
+	}
+
+	/* returns the expected value of taking one card and then playing on
+	 * perfectly */
+	double hitEv(int playerState, long remaining) {
+		int cards = Composition.total(remaining);
+		double ev = 0;
+		for(int value = 1; value <= 10; value++) {
+			int count = Composition.count(remaining, value);
+			if(count == 0) {
+				continue;
+			}
+			int next = HandState.addValue(playerState, value);
+			double outcome = HandState.hardTotal(next) > 21 ? -1
+					: bestEv(next, Composition.remove(remaining, value));
+			ev += outcome * count / cards;
+		}
+		return ev;
+	}
+
+	/* returns the better of standing and hitting, memoized by what is left
+	 * unseen */
+	double bestEv(int playerState, long remaining) {
+		Double cached = memo.get(remaining);
+		if(cached != null) {
+			return cached;
+		}
+		if(Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("the evaluation was interrupted");
+		}
+		double ev = Math.max(standEv(playerState, remaining),
+				hitEv(playerState, remaining));
+		memo.put(remaining, ev);
+		return ev;
+	}
+}
@@ -0,0 +1,98 @@
+package strategy;
+
+import blackjack.HandState;
+import deckOfCards.Card;
+import simulation.PlayerStrategy;
+
+/*
+ * A StrategyChart holds the expected value of hitting and of standing for
+ * each two-card player total against each dealer upcard, together with the
+ * house edge of playing the best choice in every spot.
+ *
+ * Rows are the hard totals 4 to 20 followed by the soft totals 12 to 20.
+ * Columns are the upcard values 1 (ace) to 10. Each entry is averaged over
+ * the two-card hands that make that total, weighted by how likely each hand
+ * is to be dealt. A chart can be used directly as a PlayerStrategy.
+ */
+public class StrategyChart implements PlayerStrategy {
+
+	static final int HARD_ROWS = 17;  // hard 4 to 20
+	static final int SOFT_ROWS = 9;   // soft 12 to 20
+	static final int ROWS = HARD_ROWS + SOFT_ROWS;
+
+	private final double[][] standEv;
+	private final double[][] hitEv;
+	private final double houseEdge;
+
+	StrategyChart(double[][] standEv, double[][] hitEv, double houseEdge) {
+		this.standEv = standEv;
+		this.hitEv = hitEv;
+		this.houseEdge = houseEdge;
+	}
+
+	/* returns the chart row for a player total, or -1 if the chart has no
+	 * row for it */
+	static int row(int total, boolean soft) {
+		if(soft) {
+			return total >= 12 && total <= 20 ? HARD_ROWS + total - 12 : -1;
+		}
+		return total >= 4 && total <= 20 ? total - 4 : -1;
+	}
+
+	/* returns the expected value of standing, per unit bet */
+	public double getStandEv(int total, boolean soft, int upcardValue) {
+		return standEv[checkedRow(total, soft)][upcardValue - 1];
+	}
+
+	/* returns the expected value of hitting once and then playing on
+	 * perfectly, per unit bet */
+	public double getHitEv(int total, boolean soft, int upcardValue) {
+		return hitEv[checkedRow(total, soft)][upcardValue - 1];
+	}
+
+	/* returns the house edge of perfect hit/stand play, as a fraction of the
+	 * bet. This is the negative of the player's expected return */
+	public double getHouseEdge() {
+		return houseEdge;
+	}
+
+	/* hits wherever the chart says hitting is worth more. Totals without a
+	 * row (hard 21, soft 21 and busted hands) stand */
+	@Override
+	public boolean shouldHit(int playerState, Card dealerUpcard) {
+		int row = row(HandState.bestTotal(playerState),
+				HandState.isSoft(playerState));
+		if(row < 0) {
+			return false;
+		}
+		int column = dealerUpcard.getRank().getValue() - 1;
+		return hitEv[row][column] > standEv[row][column];
+	}
+
+	private int checkedRow(int total, boolean soft) {
+		int row = row(total, soft);
+		if(row < 0) {
+			throw new IllegalArgumentException("no chart row for "
+					+ (soft ? "soft " : "hard ") + total);
+		}
+		return row;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder("           2  3  4  5  6  7  8  9  T  A\n");
+		for(int row = 0; row < ROWS; row++) {
+			boolean soft = row >= HARD_ROWS;
+			int total = soft ? row - HARD_ROWS + 12 : row + 4;
+			text.append(String.format("%s %2d  ", soft ? "soft" : "hard", total));
+			for(int column = 1; column <= 10; column++) {
+				int upcard = column % 10;  // ace goes in the last column
+				text.append(hitEv[row][upcard] > standEv[row][upcard]
+						? "  H" : "  S");
+			}
+			text.append('\n');
+		}
+		text.append(String.format("house edge %.4f%%", 100 * houseEdge));
+		return text.toString();
+	}
+}
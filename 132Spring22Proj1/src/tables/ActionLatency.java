@@ -0,0 +1,41 @@
+package tables;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Collects the time between a player submitting an action and the table
+ * answering it. Many tables record into one instance at once, so the totals
+ * are kept in contention-free adders.
+ */
+public class ActionLatency {
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	void record(long nanos) {
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getAverageNanos() {
+		long actions = count.sum();
+		return actions == 0 ? 0 : (double) totalNanos.sum() / actions;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%,d actions, average %.1f us, max %.1f us",
+				getCount(), getAverageNanos() / 1e3, getMaxNanos() / 1e3);
+	}
+}
@@ -0,0 +1,159 @@
+package tables;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import blackjack.HandState;
+import blackjack.Rules;
+import deckOfCards.Card;
+import simulation.OutcomeStatistics;
+
+/*
+ * A TableHost runs many TableSessions in one JVM, each with its game loop on
+ * its own thread.
+ *
+ * On a JVM with virtual threads (Java 21 and later) every game loop gets a
+ * virtual thread, so an idle table costs a few hundred bytes of heap rather
+ * than an OS thread. On older JVMs the loops run on platform threads with a
+ * small stack, which still allows thousands of tables.
+ */
+public class TableHost implements AutoCloseable {
+
+	// stack size for game loop threads when virtual threads are not available
+	private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private final ActionLatency latency = new ActionLatency();
+	private final OutcomeStatistics statistics = new OutcomeStatistics();
+	private final long turnTimeoutMillis;
+
+	/* creates a host whose tables stand for a player that has not acted
+	 * within turnTimeoutMillis */
+	public TableHost(long turnTimeoutMillis) {
+		this.turnTimeoutMillis = turnTimeoutMillis;
+		ExecutorService virtual = newVirtualThreadExecutor();
+		virtualThreads = virtual != null;
+		executor = virtualThreads ? virtual
+				: Executors.newCachedThreadPool(new SmallStackThreadFactory());
+	}
+
+	/* looks up Executors.newVirtualThreadPerTaskExecutor, which only exists
+	 * on Java 21 and later. Returns null if it is not available */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod(
+					"newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch(ReflectiveOperationException | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/* opens a table dealing from a shoe of numberOfDecks decks and starts
+	 * its game loop */
+	public TableSession openTable(long bankroll, int numberOfDecks, long seed) {
+		return openTable(bankroll, Rules.DEFAULT.withNumberOfDecks(numberOfDecks),
+				seed);
+	}
+
+	/* opens a table playing under the given rules and starts its game loop */
+	public TableSession openTable(long bankroll, Rules rules, long seed) {
+		TableSession table = new TableSession(bankroll, rules, seed,
+				turnTimeoutMillis, TimeUnit.MILLISECONDS, latency, statistics);
+		executor.execute(table);
+		return table;
+	}
+
+	/* returns true if the game loops run on virtual threads */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/* returns the outcomes of every round finished at this host's tables */
+	public OutcomeStatistics getOutcomeStatistics() {
+		return statistics;
+	}
+
+	/* returns the latency of every action answered by this host's tables */
+	public ActionLatency getActionLatency() {
+		return latency;
+	}
+
+	/* stops every game loop. Bets still on the tables are returned to the
+	 * players' bankrolls */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private static class SmallStackThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(null, task,
+					"table-" + count.incrementAndGet(), PLATFORM_STACK_SIZE);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/* opens many tables and plays rounds on all of them at once, then
+	 * reports the action latency and the outcomes: TableHost [tables]
+	 * [rounds per table] */
+	public static void main(String[] args) throws Exception {
+		int tables = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		try(TableHost host = new TableHost(5_000)) {
+			System.out.println((host.usesVirtualThreads() ? "virtual" : "platform")
+					+ " threads, " + tables + " tables");
+			List<TableSession> sessions = new ArrayList<>();
+			for(int i = 0; i < tables; i++) {
+				sessions.add(host.openTable(1_000_000, 6, i));
+			}
+			// each player is driven by its own task on the host's executor
+			List<Future<?>> players = new ArrayList<>();
+			long start = System.nanoTime();
+			for(TableSession table: sessions) {
+				players.add(host.executor.submit(() -> {
+					for(int round = 0; round < rounds; round++) {
+						TableSnapshot state = table.bet(10, 10, TimeUnit.SECONDS);
+						while(state.getPhase() == TableSnapshot.Phase.PLAYER_TURN
+								&& handTotal(state) < 17) {
+							state = table.hit(10, TimeUnit.SECONDS);
+						}
+						if(state.getPhase() == TableSnapshot.Phase.PLAYER_TURN) {
+							table.stay(10, TimeUnit.SECONDS);
+						}
+					}
+					return null;
+				}));
+			}
+			for(Future<?> player: players) {
+				player.get();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%,d rounds in %.2f s%n", (long) tables * rounds,
+					seconds);
+			System.out.println(host.getActionLatency());
+			System.out.println(host.getOutcomeStatistics().snapshot());
+		}
+	}
+
+	private static int handTotal(TableSnapshot state) {
+		int hand = HandState.EMPTY;
+		for(Card card: state.getPlayerCards()) {
+			hand = HandState.addCard(hand, card);
+		}
+		return HandState.bestTotal(hand);
+	}
+}
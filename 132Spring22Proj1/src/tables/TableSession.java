@@ -0,0 +1,281 @@
+package tables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import blackjack.BlackjackModel;
+import blackjack.GameResult;
+import blackjack.HandAssessment;
+import blackjack.HandState;
+import blackjack.Rules;
+import deckOfCards.Card;
+import deckOfCards.Shoe;
+import simulation.OutcomeStatistics;
+import tables.TableSnapshot.Phase;
+
+/*
+ * A TableSession is one blackjack table: a BlackjackModel with its own shoe
+ * and a player's bankroll, driven by a game loop on its own thread.
+ *
+ * Players act by calling bet, hit and stay from any thread. Each call hands
+ * a request to the game loop through a small bounded queue and waits, up to
+ * the given timeout, for the loop's answer. Only the loop thread touches the
+ * model, so the model itself needs no locking. If the player does not act
+ * within the table's turn timeout the loop stands for them.
+ *
+ * A call that times out waiting for its answer may still be carried out by
+ * the loop later; getSnapshot shows where the table ended up.
+ */
+public class TableSession implements Runnable {
+
+	// the most requests that may wait for the game loop at one time
+	private static final int QUEUE_CAPACITY = 4;
+
+	/* a round never uses more than this many cards, so this many must stay
+	 * behind the cut card; the shoe is only checked between rounds */
+	private static final int MAX_CARDS_PER_ROUND = 24;
+
+	private enum ActionType {BET, HIT, STAY, CLOSE}
+
+	// an action waiting for the game loop, and where to send the answer
+	private static class Request {
+		final ActionType type;
+		final long amount;
+		final CompletableFuture<TableSnapshot> reply = new CompletableFuture<>();
+
+		Request(ActionType type, long amount) {
+			this.type = type;
+			this.amount = amount;
+		}
+	}
+
+	private final ArrayBlockingQueue<Request> requests =
+			new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final BlackjackModel game;
+	private final Random random;
+	private final Rules rules;
+	private final long turnTimeoutNanos;
+	private final ActionLatency latency;
+	private final OutcomeStatistics statistics;
+
+	// this table's winnings, as one trajectory of the host's statistics
+	private final OutcomeStatistics.Bankroll winnings;
+
+	// the latest snapshot, for callers that only want to look
+	private volatile TableSnapshot current;
+
+	// only changed by the game loop thread, but read by callers to turn
+	// away actions once the table is closed
+	private volatile Phase phase = Phase.BETTING;
+
+	// the fields below are only used by the game loop thread
+	private long bankroll;
+	private long bet;
+	private boolean dealt;
+	private GameResult lastResult;
+
+	TableSession(long bankroll, Rules rules, long seed,
+			long turnTimeout, TimeUnit unit, ActionLatency latency,
+			OutcomeStatistics statistics) {
+		this.bankroll = bankroll;
+		this.rules = rules;
+		this.game = new BlackjackModel(rules, newShoe(rules.getNumberOfDecks()));
+		this.random = new Random(seed);
+		this.turnTimeoutNanos = unit.toNanos(turnTimeout);
+		this.latency = latency;
+		this.statistics = statistics;
+		this.winnings = statistics.openBankroll();
+		this.current = snapshot();
+	}
+
+	/* a shoe with the usual cut three quarters of the way in, moved forward
+	 * when that would leave too few cards behind it to finish a round */
+	private static Shoe newShoe(int numberOfDecks) {
+		int cards = numberOfDecks * Card.NUMBER_OF_CARDS;
+		return new Shoe(numberOfDecks, Math.min(cards * 3 / 4,
+				cards - MAX_CARDS_PER_ROUND));
+	}
+
+	/* places a bet and deals a new round */
+	public TableSnapshot bet(long amount, long timeout, TimeUnit unit)
+			throws InterruptedException, TimeoutException {
+		return call(new Request(ActionType.BET, amount), timeout, unit);
+	}
+
+	/* deals the player one more card */
+	public TableSnapshot hit(long timeout, TimeUnit unit)
+			throws InterruptedException, TimeoutException {
+		return call(new Request(ActionType.HIT, 0), timeout, unit);
+	}
+
+	/* ends the player's turn; the dealer plays and the round is settled */
+	public TableSnapshot stay(long timeout, TimeUnit unit)
+			throws InterruptedException, TimeoutException {
+		return call(new Request(ActionType.STAY, 0), timeout, unit);
+	}
+
+	/* stops the game loop. A bet that is still on the table is returned to
+	 * the bankroll */
+	public TableSnapshot close(long timeout, TimeUnit unit)
+			throws InterruptedException, TimeoutException {
+		return call(new Request(ActionType.CLOSE, 0), timeout, unit);
+	}
+
+	/* returns the most recent state of the table without waiting */
+	public TableSnapshot getSnapshot() {
+		return current;
+	}
+
+	private TableSnapshot call(Request request, long timeout, TimeUnit unit)
+			throws InterruptedException, TimeoutException {
+		if(phase == Phase.CLOSED) {
+			throw new IllegalStateException("the table is closed");
+		}
+		long start = System.nanoTime();
+		long deadline = start + unit.toNanos(timeout);
+		if(!requests.offer(request, timeout, unit)) {
+			throw new TimeoutException("the table did not accept the action in time");
+		}
+		// the loop may have closed and stopped reading while this waited
+		if(phase == Phase.CLOSED && requests.remove(request)) {
+			throw new IllegalStateException("the table is closed");
+		}
+		try {
+			TableSnapshot answer = request.reply.get(
+					deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			latency.record(System.nanoTime() - start);
+			return answer;
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/* the game loop */
+	@Override
+	public void run() {
+		try {
+			while(phase != Phase.CLOSED) {
+				Request request;
+				if(phase == Phase.PLAYER_TURN) {
+					request = requests.poll(turnTimeoutNanos, TimeUnit.NANOSECONDS);
+					if(request == null) {
+						// the player took too long, so they stand; nobody
+						// waits for the answer
+						request = new Request(ActionType.STAY, 0);
+					}
+				} else {
+					request = requests.take();
+				}
+				try {
+					handle(request);
+					current = snapshot();
+					request.reply.complete(current);
+				} catch(RuntimeException e) {
+					request.reply.completeExceptionally(e);
+				}
+			}
+		} catch(InterruptedException e) {
+			closeTable();
+			current = snapshot();
+		} finally {
+			ArrayList<Request> abandoned = new ArrayList<>();
+			requests.drainTo(abandoned);
+			for(Request request: abandoned) {
+				request.reply.completeExceptionally(
+						new IllegalStateException("the table is closed"));
+			}
+		}
+	}
+
+	private void handle(Request request) {
+		switch(request.type) {
+		case BET:
+			requirePhase(Phase.BETTING, request);
+			if(request.amount <= 0 || request.amount > bankroll) {
+				throw new IllegalArgumentException("cannot bet " + request.amount
+						+ " with a bankroll of " + bankroll);
+			}
+			bankroll -= request.amount;
+			bet = request.amount;
+			game.createAndShuffleDeck(random);
+			game.initialDealerCards();
+			game.initialPlayerCards();
+			dealt = true;
+			phase = Phase.PLAYER_TURN;
+			break;
+		case HIT:
+			requirePhase(Phase.PLAYER_TURN, request);
+			game.playerTakeCard();
+			if(HandState.assess(game.getPlayerState()) == HandAssessment.BUST) {
+				finishRound();
+			}
+			break;
+		case STAY:
+			requirePhase(Phase.PLAYER_TURN, request);
+			finishRound();
+			break;
+		default:
+			closeTable();
+			break;
+		}
+	}
+
+	private void requirePhase(Phase expected, Request request) {
+		if(phase != expected) {
+			throw new IllegalStateException("cannot " + request.type
+					+ " while the table is " + phase);
+		}
+	}
+
+	/* plays the dealer's hand and pays the player under the table's rules */
+	private void finishRound() {
+		game.playDealerHand();
+		lastResult = game.gameAssessment();
+		long won = rules.getWinnings(bet, lastResult);
+		bankroll += bet + won;
+		statistics.record(HandState.bestTotal(game.getPlayerState()),
+				game.getDealerUpcard().getRank().getValue(), lastResult);
+		winnings.record(won);
+		bet = 0;
+		phase = Phase.BETTING;
+	}
+
+	private void closeTable() {
+		bankroll += bet;
+		bet = 0;
+		phase = Phase.CLOSED;
+		winnings.close();
+	}
+
+	private TableSnapshot snapshot() {
+		byte[] player = new byte[0];
+		byte[] dealer = new byte[0];
+		if(dealt) {
+			player = ids(game.playerHand());
+			if(phase == Phase.PLAYER_TURN) {
+				dealer = new byte[] {game.getDealerUpcard().getId()};
+			} else {
+				dealer = ids(game.dealerHand());
+			}
+		}
+		return new TableSnapshot(phase, bankroll, bet, player, dealer,
+				lastResult);
+	}
+
+	private static byte[] ids(List<Card> cards) {
+		byte[] ids = new byte[cards.size()];
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = cards.get(i).getId();
+		}
+		return ids;
+	}
+}
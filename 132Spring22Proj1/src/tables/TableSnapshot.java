@@ -0,0 +1,79 @@
+package tables;
+
+import java.util.Arrays;
+
+import blackjack.GameResult;
+import deckOfCards.Card;
+
+/*
+ * An immutable picture of a table, returned to the player after each action.
+ * Cards are kept as Card ids. While the player is still deciding, only the
+ * dealer's face-up card is included.
+ */
+public class TableSnapshot {
+
+	/* the stages a table moves through: waiting for a bet, waiting for the
+	 * player to hit or stay, and closed for good */
+	public enum Phase {BETTING, PLAYER_TURN, CLOSED}
+
+	private final Phase phase;
+	private final long bankroll;
+	private final long bet;
+	private final byte[] playerCards;
+	private final byte[] dealerCards;
+	private final GameResult lastResult;
+
+	TableSnapshot(Phase phase, long bankroll, long bet, byte[] playerCards,
+			byte[] dealerCards, GameResult lastResult) {
+		this.phase = phase;
+		this.bankroll = bankroll;
+		this.bet = bet;
+		this.playerCards = playerCards;
+		this.dealerCards = dealerCards;
+		this.lastResult = lastResult;
+	}
+
+	public Phase getPhase() {
+		return phase;
+	}
+
+	/* returns the chips the player holds, not counting the current bet */
+	public long getBankroll() {
+		return bankroll;
+	}
+
+	public long getBet() {
+		return bet;
+	}
+
+	public Card[] getPlayerCards() {
+		return toCards(playerCards);
+	}
+
+	/* returns the dealer cards the player can see */
+	public Card[] getDealerCards() {
+		return toCards(dealerCards);
+	}
+
+	/* returns the result of the most recently settled round, or null if no
+	 * round has been settled yet */
+	public GameResult getLastResult() {
+		return lastResult;
+	}
+
+	private static Card[] toCards(byte[] ids) {
+		Card[] cards = new Card[ids.length];
+		for(int i = 0; i < ids.length; i++) {
+			cards[i] = Card.fromId(ids[i]);
+		}
+		return cards;
+	}
+
+	@Override
+	public String toString() {
+		return phase + " bankroll=" + bankroll + " bet=" + bet
+				+ " player=" + Arrays.toString(getPlayerCards())
+				+ " dealer=" + Arrays.toString(getDealerCards())
+				+ " last=" + lastResult;
+	}
+}
@@ -2,10 +2,31 @@ package tests;
 
 import deckOfCards.*;
 import blackjack.*;
+import simulation.*;
+import strategy.*;
+import tables.*;
+import history.*;
+import metrics.*;
+import console.*;
+import java.io.StringReader;
+import java.io.StringWriter;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -300,4 +321,828 @@ public class PublicTests {
 	}
 
 
+	@Test
+	public void testShoeCutCardAndReuse() {
+		Shoe shoe = new Shoe(6, 250);
+		assertTrue(shoe.needsShuffle());
+		BlackjackModel game = new BlackjackModel(shoe);
+		Random random = new Random(99);
+		game.createAndShuffleDeck(random);
+		assertFalse(shoe.needsShuffle());
+		assertEquals(312, shoe.cardsRemaining());
+		for (int i = 0; i < 249; i++) {
+			shoe.dealOneCard();
+		}
+		game.createAndShuffleDeck(random);
+		assertEquals(63, shoe.cardsRemaining());  // same shoe, not reshuffled
+		shoe.dealOneCard();
+		assertTrue(shoe.reachedCutCard());
+		game.createAndShuffleDeck(random);
+		assertEquals(312, shoe.cardsRemaining());
+	}
+
+	@Test
+	public void testCardFlyweightIds() {
+		for (int id = 0; id < Card.NUMBER_OF_CARDS; id++) {
+			Card card = Card.fromId(id);
+			assertEquals(id, card.getId());
+			assertSame(card, Card.of(card.getRank(), card.getSuit()));
+			assertEquals(card.getRank().getValue(), Card.rankValue(id));
+			assertEquals(card.getRank().ordinal(), Card.rankOrdinal(id));
+		}
+		Card made = new Card(Rank.QUEEN, Suit.HEARTS);
+		assertEquals(Card.of(Rank.QUEEN, Suit.HEARTS), made);
+		assertEquals(Card.of(Rank.QUEEN, Suit.HEARTS).hashCode(), made.hashCode());
+	}
+
+	@Test
+	public void testHandStateTracksDeals() {
+		BlackjackModel game = new BlackjackModel();
+		game.createAndShuffleDeck(new Random(3723));
+		game.initialPlayerCards();
+		game.initialDealerCards();
+		game.playerTakeCard();
+		int state = game.getPlayerState();
+		assertEquals(HandState.of(game.getPlayerCards()), state);
+		assertEquals(24, HandState.hardTotal(state));  // Q, 6, 8
+		assertEquals(3, HandState.cardCount(state));
+		assertEquals(HandAssessment.BUST, HandState.assess(state));
+
+		int softSeventeen = HandState.addCard(HandState.addCard(HandState.EMPTY,
+				new Card(Rank.ACE, Suit.SPADES)), new Card(Rank.SIX, Suit.HEARTS));
+		assertTrue(HandState.isSoft(softSeventeen));
+		assertEquals(17, HandState.bestTotal(softSeventeen));
+		assertTrue(HandState.dealerShouldTakeCard(softSeventeen));
+	}
+
+	@Test
+	public void testSimulationIsIndependentOfThreadCount() {
+		MonteCarloSimulator simulator = new MonteCarloSimulator(6, 234,
+				PlayerStrategy.MIMIC_DEALER);
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool quad = new ForkJoinPool(4);
+		SimulationResult one;
+		SimulationResult four;
+		try {
+			one = simulator.run(100_000, 42, single);
+			four = simulator.run(100_000, 42, quad);
+		} finally {
+			single.shutdown();
+			quad.shutdown();
+		}
+		assertEquals(100_000, one.getHands());
+		for (GameResult result : GameResult.values()) {
+			assertEquals(one.getCount(result), four.getCount(result));
+		}
+		assertEquals(one.getExpectedReturn(), four.getExpectedReturn(), 0);
+	}
+
+	@Test
+	public void testBasicStrategySolver() {
+		StrategyChart chart = new BasicStrategySolver(1).solve();
+		assertTrue(chart.getHitEv(16, false, 10) > chart.getStandEv(16, false, 10));
+		assertTrue(chart.getStandEv(13, false, 2) > chart.getHitEv(13, false, 2));
+		assertTrue(chart.getStandEv(20, false, 6) > chart.getHitEv(20, false, 6));
+		assertTrue(chart.getHitEv(17, true, 7) > chart.getStandEv(17, true, 7));
+		assertEquals(0.0176, chart.getHouseEdge(), 0.0001);
+	}
+
+	@Test
+	public void testDealerOutcomeService() {
+		DealerOutcomeService service = new DealerOutcomeService(100);
+		long unseen = Composition.remove(Composition.ofDecks(1), 10);
+		DealerDistribution tenUp = service.distribution(10, unseen);
+		double sum = 0;
+		for (DealerOutcome outcome : DealerOutcome.values()) {
+			sum += tenUp.getProbability(outcome);
+		}
+		assertEquals(1.0, sum, 1e-12);
+		assertEquals(4.0 / 51, tenUp.getProbability(DealerOutcome.BLACKJACK), 1e-12);
+		assertSame(tenUp, service.distribution(new Card(Rank.KING, Suit.CLUBS), unseen));
+		assertEquals(1, service.size());
+
+		// a two showing with only two more twos behind it stops at six
+		long twos = Composition.add(0, 2, 2);
+		try {
+			service.distribution(2, twos);
+			fail("the dealer should run out of cards");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	@Test
+	public void testTableSessionRound() throws Exception {
+		try (TableHost host = new TableHost(60_000)) {
+			TableSession table = host.openTable(100, 1, 3723);
+			TableSnapshot state = table.bet(10, 5, TimeUnit.SECONDS);
+			assertEquals(TableSnapshot.Phase.PLAYER_TURN, state.getPhase());
+			assertEquals(90, state.getBankroll());
+			assertEquals(2, state.getPlayerCards().length);
+			assertEquals(1, state.getDealerCards().length);
+			try {
+				table.bet(10, 5, TimeUnit.SECONDS);
+				fail("a second bet should be refused during the player's turn");
+			} catch (IllegalStateException expected) {
+			}
+			state = table.stay(5, TimeUnit.SECONDS);
+			assertEquals(TableSnapshot.Phase.BETTING, state.getPhase());
+			assertNotNull(state.getLastResult());
+			assertEquals(2, host.getActionLatency().getCount());
+
+			// a closed table turns actions away instead of timing them out
+			table.close(5, TimeUnit.SECONDS);
+			long start = System.nanoTime();
+			try {
+				table.hit(1, TimeUnit.HOURS);
+				fail("a closed table should refuse to deal");
+			} catch (IllegalStateException expected) {
+			}
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		}
+	}
+
+	@Test
+	public void testChipLedger() {
+		ChipLedger chips = new ChipLedger(500, 100, 50, 10, 5);
+		assertEquals(0, chips.allocate(1000));
+		assertEquals("0 x $500, 5 x $100, 8 x $50, 7 x $10, 6 x $5", chips.toString());
+		ChipLedger bet = new ChipLedger(500, 100, 50, 10, 5);
+		assertEquals(0, chips.take(160, bet));
+		assertEquals(160, bet.getTotal());
+		assertEquals(840, chips.getTotal());
+		chips.add(bet, 2);
+		assertEquals(1160, chips.getTotal());
+		chips.rebalance();
+		assertEquals(1160, chips.getTotal());
+		for (int i = 0; i < chips.getDenominationCount(); i++) {
+			assertTrue(chips.getCount(i) <= ChipLedger.MAX_STACK);
+		}
+		// 19 ones cannot be traded for a $100 chip, so nothing changes
+		ChipLedger ones = new ChipLedger(100, 1);
+		ones.allocate(19);
+		assertEquals(19, ones.getCount(1));
+		assertFalse(ones.rebalance());
+		assertEquals(19, ones.getCount(1));
+		assertEquals(0, ones.getCount(0));
+		long huge = 4_000_000_000_000_003L;
+		assertEquals(3, chips.allocate(huge));
+		assertEquals(huge - 3, chips.getTotal());
+		try {
+			new ChipLedger(100, 30);
+			fail("30 does not divide 100");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	@Test
+	public void testHandJournalReplay() throws Exception {
+		Path directory = Files.createTempDirectory("journal");
+		MonteCarloSimulator simulator = new MonteCarloSimulator(2, 78,
+				PlayerStrategy.MIMIC_DEALER);
+		SimulationResult totals;
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try (HandJournal journal = new HandJournal(directory, 1 << 12)) {
+			totals = simulator.run(3000, 5, pool, journal);
+			assertEquals(3000, journal.getRecordCount());
+		} finally {
+			pool.shutdown();
+		}
+		assertTrue(directory.toFile().list().length > 1);
+		long[] counts = new long[GameResult.values().length];
+		try (HandJournalReader reader = new HandJournalReader(directory)) {
+			HandRecord first = reader.next();
+			for (HandRecord record = first; record != null; record = reader.next()) {
+				// 3000 hands are one chunk, so every round shares its seed
+				assertEquals(first.getChunkSeed(), record.getChunkSeed());
+				assertEquals(1, record.getBet());
+				assertEquals(record.getResult(), record.replay().gameAssessment());
+				assertEquals(record.getPlayerCards().size() - 2, record.getHits());
+				counts[record.getResult().ordinal()]++;
+			}
+		}
+		for (GameResult result : GameResult.values()) {
+			assertEquals(totals.getCount(result), counts[result.ordinal()]);
+		}
+	}
+
+	@Test
+	public void testHandColumnScanner() throws Exception {
+		Path directory = Files.createTempDirectory("columns");
+		MonteCarloSimulator simulator = new MonteCarloSimulator(2, 78,
+				PlayerStrategy.MIMIC_DEALER);
+		Path journalDirectory = Files.createTempDirectory("journal");
+		SimulationResult totals;
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try (HandJournal journal = new HandJournal(journalDirectory)) {
+			totals = simulator.run(5000, 11, pool, journal);
+		} finally {
+			pool.shutdown();
+		}
+		try (HandColumnWriter writer = new HandColumnWriter(directory, 1000);
+				HandJournalReader reader = new HandJournalReader(journalDirectory)) {
+			for (HandRecord record = reader.next(); record != null; record = reader.next()) {
+				writer.append(record);
+			}
+		}
+		HandColumnScanner scanner = new HandColumnScanner(directory);
+		assertEquals(5000, scanner.getRowCount());
+		EvGrid grid = scanner.evByPlayerTotalAndUpcard(HandFilter.ALL);
+		assertEquals(totals.getExpectedReturn(), grid.getExpectedReturn(), 1e-12);
+		assertEquals(totals.getCount(GameResult.PUSH), scanner.count(new HandFilter() {
+			public boolean accept(int playerTotal, int dealerUpcard, int dealerTotal,
+					HandAssessment assessment, GameResult result, long bet) {
+				return result == GameResult.PUSH;
+			}
+		}));
+		assertEquals(-1.0, grid.getExpectedReturn(22, 10), 0);
+	}
+
+	@Test
+	public void testShoeCountsCards() {
+		Shoe shoe = new Shoe(2);
+		assertEquals(-4, shoe.getRunningCount(CountingSystem.KO));
+		final int[] dealt = new int[2];
+		shoe.addDealListener(new DealListener() {
+			public void cardDealt(Deck deck, Card card) {
+				dealt[0]++;
+			}
+
+			public void reshuffled(Deck deck) {
+				dealt[1]++;
+			}
+		});
+		for (int i = 0; i < 6; i++) {  // ace through six of spades
+			shoe.dealOneCard();
+		}
+		assertEquals(7, shoe.getRemaining(Rank.ACE));
+		assertEquals(8, shoe.getRemaining(Rank.SEVEN));
+		assertEquals(4, shoe.getRunningCount(CountingSystem.HI_LO));
+		assertEquals(0, shoe.getRunningCount(CountingSystem.KO));
+		assertEquals(8, shoe.getRunningCount(CountingSystem.OMEGA_II));
+		assertEquals(4 * 52 / 98.0, shoe.getTrueCount(CountingSystem.HI_LO), 1e-12);
+		CountSnapshot snapshot = shoe.getCountSnapshot();
+		assertEquals(32, snapshot.getRemainingWithValue(10));
+		assertEquals(6, dealt[0]);
+		shoe.shuffle(new Random(1));
+		assertEquals(1, dealt[1]);
+		assertEquals(8, shoe.getRemaining(Rank.ACE));
+		assertEquals(7, snapshot.getRemaining(Rank.ACE));
+		while (shoe.cardsRemaining() > 0) {
+			shoe.dealOneCard();
+		}
+		assertEquals(0, shoe.getRunningCount(CountingSystem.HI_LO));
+		assertEquals(4, shoe.getRunningCount(CountingSystem.KO));
+	}
+
+	@Test
+	public void testHandEvaluator() {
+		HandEvaluator evaluator = new HandEvaluator(new DealerOutcomeService(1 << 12));
+		ArrayList<Card> twelve = new ArrayList<Card>();
+		twelve.add(new Card(Rank.TEN, Suit.SPADES));
+		twelve.add(new Card(Rank.TWO, Suit.HEARTS));
+		HandEv versusTen = evaluator.evaluate(twelve, new Card(Rank.KING, Suit.CLUBS), 1);
+		assertTrue(versusTen.shouldHit());
+		HandEv versusSix = evaluator.evaluate(twelve, new Card(Rank.SIX, Suit.CLUBS), 1);
+		assertFalse(versusSix.shouldHit());
+		assertTrue(versusSix.getStandEv() > versusTen.getStandEv());
+
+		ArrayList<Card> natural = new ArrayList<Card>();
+		natural.add(new Card(Rank.ACE, Suit.SPADES));
+		natural.add(new Card(Rank.KING, Suit.HEARTS));
+		HandEv blackjack = evaluator.evaluate(natural, new Card(Rank.ACE, Suit.CLUBS), 1);
+		assertEquals(1.5 * (1 - 15.0 / 49), blackjack.getStandEv(), 1e-12);
+
+		Thread.currentThread().interrupt();
+		try {
+			evaluator.evaluate(twelve, new Card(Rank.NINE, Suit.CLUBS), 2);
+			fail("an interrupted evaluation should stop");
+		} catch (java.util.concurrent.CancellationException expected) {
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	public void testUnseenCardsComeFromTheDeck() {
+		BlackjackModel fresh = new BlackjackModel();
+		fresh.createAndShuffleDeck(new Random(4));
+		fresh.initialDealerCards();
+		fresh.initialPlayerCards();
+		assertEquals(HandEvaluator.unseen(1, fresh.getDealerUpcard(), fresh.playerHand()),
+				HandEvaluator.unseen(fresh.getCountSnapshot(),
+						fresh.dealerHand().subList(1, 2)));
+
+		// a shoe remembers the earlier hands, a fresh count would not
+		BlackjackModel game = new BlackjackModel(Rules.DEFAULT.withNumberOfDecks(2));
+		Random random = new Random(5);
+		for (int hand = 0; hand < 4; hand++) {
+			game.createAndShuffleDeck(random);
+			game.initialDealerCards();
+			game.initialPlayerCards();
+			game.playDealerHand();
+		}
+		game.createAndShuffleDeck(random);
+		game.initialDealerCards();
+		game.initialPlayerCards();
+		long unseen = HandEvaluator.unseen(game.getCountSnapshot(),
+				game.dealerHand().subList(1, 2));
+		assertEquals(game.getCountSnapshot().getCardsRemaining() + 1,
+				Composition.total(unseen));
+		assertTrue(Composition.total(unseen) < Composition.total(
+				HandEvaluator.unseen(2, game.getDealerUpcard(), game.playerHand())));
+	}
+
+	@Test
+	public void testRules() {
+		Card ace = new Card(Rank.ACE, Suit.SPADES);
+		int softSeventeen = HandState.addCard(HandState.addCard(HandState.EMPTY,
+				ace), new Card(Rank.SIX, Suit.HEARTS));
+		int hardSeventeen = HandState.addValue(HandState.addValue(
+				HandState.EMPTY, 10), 7);
+		Rules h17 = Rules.DEFAULT;
+		Rules s17 = h17.withDealerHitsSoft17(false);
+		assertTrue(h17.dealerShouldTakeCard(softSeventeen));
+		assertFalse(s17.dealerShouldTakeCard(softSeventeen));
+		assertFalse(h17.dealerShouldTakeCard(hardSeventeen));
+
+		int natural = HandState.addValue(HandState.addCard(HandState.EMPTY,
+				ace), 10);
+		assertEquals(GameResult.NATURAL_BLACKJACK,
+				h17.result(natural, hardSeventeen));
+		assertEquals(7, h17.getWinnings(5, GameResult.NATURAL_BLACKJACK));
+		assertEquals(-5, h17.getWinnings(5, GameResult.PLAYER_LOST));
+		Rules sixToFive = h17.withBlackjackPayout(6, 5);
+		assertEquals(1.2, sixToFive.getPayout(GameResult.NATURAL_BLACKJACK), 0);
+		assertEquals(12, sixToFive.getPayoutUnits(natural, hardSeventeen));
+		assertEquals(10, sixToFive.getPayoutUnits(GameResult.PLAYER_WON));
+		assertEquals(6, sixToFive.getWinnings(5, GameResult.NATURAL_BLACKJACK));
+
+		// the tables agree with plain branching logic on random rounds
+		Random random = new Random(17);
+		for (Rules rules : new Rules[] {h17, s17}) {
+			for (int round = 0; round < 1000; round++) {
+				BlackjackModel game = new BlackjackModel(rules);
+				game.createAndShuffleDeck(random);
+				game.initialPlayerCards();
+				game.initialDealerCards();
+				while (random.nextBoolean() && HandState.hardTotal(
+						game.getPlayerState()) < 21) {
+					game.playerTakeCard();
+				}
+				while (dealerHits(game.getDealerState(), rules.dealerHitsSoft17())) {
+					assertTrue(rules.dealerShouldTakeCard(game.getDealerState()));
+					game.dealerTakeCard();
+				}
+				int dealer = game.getDealerState();
+				assertFalse(rules.dealerShouldTakeCard(dealer));
+				assertEquals(expectedResult(game.getPlayerState(), dealer),
+						rules.result(game.getPlayerState(), dealer));
+				assertEquals(expectedResult(game.getPlayerState(), dealer),
+						game.gameAssessment());
+			}
+		}
+	}
+
+	/* the dealer's rule worked out directly, without the Rules tables */
+	private static boolean dealerHits(int state, boolean hitsSoft17) {
+		int best = HandState.bestTotal(state);
+		if (best < 17) {
+			return true;
+		}
+		return best == 17 && hitsSoft17 && HandState.isSoft(state);
+	}
+
+	/* the result of a round worked out directly, without the Rules tables */
+	private static GameResult expectedResult(int player, int dealer) {
+		HandAssessment playerHand = HandState.assess(player);
+		HandAssessment dealerHand = HandState.assess(dealer);
+		if (playerHand == HandAssessment.NATURAL_BLACKJACK) {
+			if (dealerHand == HandAssessment.NATURAL_BLACKJACK) {
+				return GameResult.PUSH;
+			}
+			return GameResult.NATURAL_BLACKJACK;
+		} else if (playerHand == HandAssessment.BUST) {
+			return GameResult.PLAYER_LOST;
+		} else if (dealerHand == HandAssessment.BUST) {
+			return GameResult.PLAYER_WON;
+		}
+		int playerTotal = HandState.bestTotal(player);
+		int dealerTotal = HandState.bestTotal(dealer);
+		if (playerTotal > dealerTotal) {
+			return GameResult.PLAYER_WON;
+		} else if (playerTotal < dealerTotal) {
+			return GameResult.PLAYER_LOST;
+		}
+		return GameResult.PUSH;
+	}
+
+	@Test
+	public void testTableModelSplitsAndSettles() {
+		Rules rules = Rules.DEFAULT.withNumberOfDecks(6).withDoubleAllowed(true)
+				.withSplitAllowed(true).withSurrenderAllowed(true);
+		TableModel table = new TableModel(rules, TableModel.MAX_SEATS);
+		long[] bets = {10, 0, 20, 5, 10, 10, 25};
+		Random random = new Random(18);
+		int splits = 0;
+		int doubles = 0;
+		for (int round = 0; round < 2000; round++) {
+			table.startRound(bets, random);
+			while (table.isPlayerTurn()) {
+				int seat = table.getCurrentSeat();
+				int state = table.getHandState(seat, table.getCurrentHand());
+				int upcard = table.getDealerUpcard().getRank().getValue();
+				if (table.canSplit()) {
+					table.split();
+					splits++;
+				} else if (table.canDouble() && HandState.bestTotal(state) == 11) {
+					table.doubleDown();
+					doubles++;
+				} else if (table.canSurrender() && HandState.bestTotal(state) == 16
+						&& upcard == 10) {
+					table.surrender();
+				} else if (HandState.bestTotal(state) < 17) {
+					table.hit();
+				} else {
+					table.stand();
+				}
+			}
+			table.finishRound();
+
+			assertEquals(0, table.getHandCount(1));
+			for (int seat = 0; seat < table.getSeats(); seat++) {
+				long total = 0;
+				for (int hand = 0; hand < table.getHandCount(seat); hand++) {
+					int state = table.getHandState(seat, hand);
+					long bet = table.getBet(seat, hand);
+					GameResult result = table.getResult(seat, hand);
+					if (table.isSurrendered(seat, hand)) {
+						assertEquals(-bets[seat] / 2, table.getWinnings(seat, hand));
+					} else {
+						assertEquals(table.isDoubled(seat, hand) ? 2 * bets[seat]
+								: bets[seat], bet);
+						assertEquals(rules.getWinnings(bet, result),
+								table.getWinnings(seat, hand));
+					}
+					if (table.getHandCount(seat) == 1
+							&& !table.isSurrendered(seat, hand)) {
+						assertEquals(rules.result(state, table.getDealerState()),
+								result);
+					}
+					total += table.getWinnings(seat, hand);
+				}
+				assertEquals(total, table.getSeatWinnings(seat));
+			}
+		}
+		assertTrue(splits > 0);
+		assertTrue(doubles > 0);
+	}
+
+	@Test
+	public void testOneDeckTableNeverDealsACardTwice() {
+		Rules rules = Rules.DEFAULT.withSplitAllowed(true);
+		TableModel table = new TableModel(rules, TableModel.MAX_SEATS);
+		long[] bets = new long[TableModel.MAX_SEATS];
+		Arrays.fill(bets, 10);
+		Random random = new Random(19);
+		for (int round = 0; round < 500; round++) {
+			table.startRound(bets, random);
+			while (table.isPlayerTurn()) {
+				int state = table.getHandState(table.getCurrentSeat(),
+						table.getCurrentHand());
+				if (table.canSplit()) {
+					table.split();
+				} else if (HandState.bestTotal(state) < 18) {
+					table.hit();
+				} else {
+					table.stand();
+				}
+			}
+			table.finishRound();
+
+			// a single deck has each card id once, so none can repeat
+			boolean[] seen = new boolean[Card.NUMBER_OF_CARDS];
+			for (int seat = 0; seat < table.getSeats(); seat++) {
+				for (int hand = 0; hand < table.getHandCount(seat); hand++) {
+					int count = HandState.cardCount(table.getHandState(seat, hand));
+					for (int i = 0; i < count; i++) {
+						int id = table.getCard(seat, hand, i).getId();
+						assertFalse(seen[id]);
+						seen[id] = true;
+					}
+				}
+			}
+			for (int i = 0; i < HandState.cardCount(table.getDealerState()); i++) {
+				int id = table.getDealerCard(i).getId();
+				assertFalse(seen[id]);
+				seen[id] = true;
+			}
+		}
+	}
+
+	@Test
+	public void testLazyShuffle() {
+		Deck first = new Deck();
+		Deck second = new Deck();
+		first.shuffleLazily(RandomGenerator.of("Xoshiro256PlusPlus"));
+		second.shuffleLazily(new SplittableRandom(19));
+		Deck again = new Deck();
+		again.shuffleLazily(new SplittableRandom(19));
+		boolean[] seen = new boolean[Card.NUMBER_OF_CARDS];
+		for (int i = 0; i < Card.NUMBER_OF_CARDS; i++) {
+			Card card = first.dealOneCard();
+			assertFalse(seen[card.getId()]);
+			seen[card.getId()] = true;
+			assertEquals(second.dealOneCard(), again.dealOneCard());
+		}
+		assertEquals(0, first.getRemaining(Rank.ACE));
+
+		Shoe shoe = new Shoe(2);
+		shoe.shuffle(new SplittableRandom(1));
+		shoe.dealOneCard();
+		shoe.shuffleLazily(new SplittableRandom(2));
+		assertFalse(shoe.needsShuffle());
+		int[] copies = new int[Card.NUMBER_OF_CARDS];
+		while (shoe.cardsRemaining() > 0) {
+			copies[shoe.dealOneCard().getId()]++;
+		}
+		for (int copiesOfCard : copies) {
+			assertEquals(2, copiesOfCard);
+		}
+	}
+
+	@Test
+	public void testHandBatchMatchesPerHandMethods() {
+		Random random = new Random(20);
+		ArrayList<ArrayList<Card>> hands = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			ArrayList<Card> hand = new ArrayList<>();
+			int size = random.nextInt(7);
+			for (int card = 0; card < size; card++) {
+				hand.add(Card.fromId(random.nextInt(Card.NUMBER_OF_CARDS)));
+			}
+			hands.add(hand);
+		}
+		int n = hands.size();
+		int[] totals = new int[n];
+		byte[] soft = new byte[n];
+		byte[] assessments = new byte[n];
+		HandBatch.evaluate(HandBatch.pack(hands, 6), n, 6, totals, soft,
+				assessments);
+		for (int i = 0; i < n; i++) {
+			ArrayList<Integer> values = BlackjackModel.possibleHandValues(hands.get(i));
+			assertEquals((int) values.get(values.size() - 1), totals[i]);
+			assertEquals(values.size() == 2 ? 1 : 0, soft[i]);
+			assertEquals(values.get(0).intValue(), totals[i] - 10 * soft[i]);
+			assertEquals(BlackjackModel.assessHand(hands.get(i)).ordinal(),
+					assessments[i]);
+		}
+
+		// the plain loops agree with whichever implementation evaluate used
+		int[] scalarTotals = new int[n];
+		byte[] scalarSoft = new byte[n];
+		byte[] scalarAssessments = new byte[n];
+		HandBatch.evaluateScalar(HandBatch.pack(hands, 6), n, 6, scalarTotals,
+				scalarSoft, scalarAssessments);
+		assertArrayEquals(totals, scalarTotals);
+		assertArrayEquals(soft, scalarSoft);
+		assertArrayEquals(assessments, scalarAssessments);
+
+		// 25 tens, the longest hand allowed, still totals 250
+		ArrayList<ArrayList<Card>> tens = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			ArrayList<Card> hand = new ArrayList<>();
+			for (int card = 0; card < i % HandBatch.MAX_CARDS + 1; card++) {
+				hand.add(new Card(Rank.KING, Suit.CLUBS));
+			}
+			tens.add(hand);
+		}
+		int[] tenTotals = new int[100];
+		HandBatch.evaluate(HandBatch.pack(tens, HandBatch.MAX_CARDS), 100,
+				HandBatch.MAX_CARDS, tenTotals, new byte[100], new byte[100]);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(10 * (i % HandBatch.MAX_CARDS + 1), tenTotals[i]);
+		}
+	}
+
+	@Test
+	public void testOutcomeStatistics() throws Exception {
+		for (long value : new long[] {0, 1, 2, 3, 4, 1000, -1, -2, -3, -1000,
+				Long.MAX_VALUE, Long.MIN_VALUE}) {
+			int bucket = LogHistogram.bucket(value);
+			assertTrue(LogHistogram.lowerBound(bucket) <= value);
+			assertTrue(value <= LogHistogram.upperBound(bucket));
+		}
+
+		OutcomeStatistics statistics = new OutcomeStatistics();
+		MonteCarloSimulator simulator = new MonteCarloSimulator(6, 234,
+				PlayerStrategy.MIMIC_DEALER);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		SimulationResult result;
+		try {
+			Future<SimulationResult> running = pool.submit(
+					() -> simulator.run(200_000, 21, pool, null, statistics));
+			// reading while the simulation runs never goes backwards
+			long before = statistics.snapshot().getRounds();
+			long after = statistics.snapshot().getRounds();
+			assertTrue(before <= after);
+			result = running.get();
+		} finally {
+			pool.shutdown();
+		}
+
+		OutcomeSnapshot snapshot = statistics.snapshot();
+		assertEquals(200_000, snapshot.getRounds());
+		for (GameResult outcome : GameResult.values()) {
+			assertEquals(result.getCount(outcome), snapshot.getCount(outcome));
+		}
+		long bankrollSamples = 0;
+		for (long count : snapshot.getBankrollHistogram()) {
+			bankrollSamples += count;
+		}
+		assertEquals(200_000, bankrollSamples);
+		long trajectories = 0;
+		for (long count : snapshot.getMaxDrawdownHistogram()) {
+			trajectories += count;
+		}
+		// one bankroll per chunk: 200,000 hands halve into 16 chunks
+		assertEquals(16, trajectories);
+		assertTrue(LogHistogram.quantile(snapshot.getDrawdownHistogram(), 0.5) > 0);
+	}
+
+	@Test
+	public void testRoundMetricsAndFlightRecorderEvents() throws Exception {
+		RoundMetrics.reset();
+		RoundMetrics.setEnabled(true);
+		Path file = Files.createTempFile("rounds", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("blackjack.RoundStage").withThreshold(Duration.ZERO);
+			recording.start();
+			BlackjackModel game = new BlackjackModel();
+			Random random = new Random(22);
+			for (int round = 0; round < 100; round++) {
+				game.createAndShuffleDeck(random);
+				game.initialDealerCards();
+				game.initialPlayerCards();
+				game.playDealerHand();
+				game.gameAssessment();
+			}
+			recording.stop();
+			recording.dump(file);
+		} finally {
+			RoundMetrics.setEnabled(false);
+		}
+		assertEquals(100, RoundMetrics.getCount(Stage.SHUFFLE));
+		assertEquals(200, RoundMetrics.getCount(Stage.PLAYER_TAKE_CARD));
+		assertTrue(RoundMetrics.getCount(Stage.DEALER_TAKE_CARD) >= 200);
+		assertTrue(RoundMetrics.getPercentileNanos(Stage.GAME_ASSESSMENT, 50)
+				<= RoundMetrics.getPercentileNanos(Stage.GAME_ASSESSMENT, 99));
+		assertTrue(RoundMetrics.getHandsPerSecond() > 0);
+
+		int assessments = 0;
+		for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+			if (event.getEventType().getName().equals("blackjack.RoundStage")
+					&& event.getString("stage").equals("GAME_ASSESSMENT")) {
+				assessments++;
+				assertEquals(2, event.getInt("playerCards"));
+				assertTrue(event.getInt("dealerCards") >= 2);
+			}
+		}
+		Files.delete(file);
+		assertEquals(100, assessments);
+	}
+
+	@Test
+	public void testConsoleBlackjack() throws Exception {
+		StringBuilder script = new StringBuilder("hit\nbet 3\nbet 9000\n");
+		for (int i = 0; i < 50; i++) {
+			script.append("bet 100\nstay\n");
+		}
+		script.append("quit\n");
+		StringWriter output = new StringWriter();
+		ConsoleBlackjack console = new ConsoleBlackjack(Rules.DEFAULT, 5000,
+				new SplittableRandom(23), new StringReader(script.toString()),
+				output);
+		console.run();
+
+		String[] lines = output.toString().split("\\R");
+		assertEquals("error: no hand is being played", lines[1]);
+		assertEquals("error: a bet is a positive multiple of $5", lines[2]);
+		assertEquals("error: you only have $5000", lines[3]);
+		long expected = 5000;
+		int hands = 0;
+		for (String line : lines) {
+			if (line.startsWith("result: Won $")) {
+				expected += Long.parseLong(line.substring(13));
+				hands++;
+			} else if (line.startsWith("result: Lost $")) {
+				expected -= Long.parseLong(line.substring(14));
+				hands++;
+			} else if (line.equals("result: Push")) {
+				hands++;
+			}
+		}
+		assertEquals(50, hands);
+		assertEquals(expected, console.getChips());
+		assertTrue(lines[lines.length - 1].startsWith("chips $" + expected));
+	}
+
+	@Test
+	public void testReadOnlyHandViews() {
+		BlackjackModel game = new BlackjackModel();
+		game.createAndShuffleDeck(new Random(24));
+		game.initialDealerCards();
+		game.initialPlayerCards();
+		List<Card> player = game.playerHand();
+		assertSame(player, game.playerHand());
+		assertEquals(game.getPlayerCards(), player);
+		assertEquals(game.getDealerCards(), game.dealerHand());
+		try {
+			player.add(new Card(Rank.ACE, Suit.SPADES));
+			fail("the view should be read-only");
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			game.dealerHand().clear();
+			fail("the view should be read-only");
+		} catch (UnsupportedOperationException e) {
+		}
+
+		game.playerTakeCard();
+		assertEquals(3, player.size());
+		assertEquals(game.getPlayerCards(), player);
+
+		// a new hand gets a new view and the old one keeps the old hand
+		game.createAndShuffleDeck(new Random(25));
+		game.initialPlayerCards();
+		assertEquals(3, player.size());
+		assertNotSame(player, game.playerHand());
+
+		ArrayList<Card> hand = new ArrayList<>();
+		hand.add(new Card(Rank.KING, Suit.SPADES));
+		hand.add(new Card(Rank.SIX, Suit.HEARTS));
+		game.setDealerCards(hand);
+		hand.add(new Card(Rank.FIVE, Suit.CLUBS));
+		assertEquals(2, game.dealerHand().size());
+		assertTrue(game.dealerShouldTakeCard());
+	}
+
+	@Test
+	public void testGameStateForks() {
+		Rules rules = Rules.DEFAULT.withNumberOfDecks(6).withDoubleAllowed(true);
+		BlackjackModel game = new BlackjackModel(rules);
+		game.createAndShuffleDeckLazily(new SplittableRandom(25));
+		game.initialDealerCards();
+		game.initialPlayerCards();
+		GameState start = game.snapshot(10);
+		assertEquals(game.getPlayerCards(), start.playerHand());
+		assertEquals(game.getDealerCards(), start.dealerHand());
+		assertEquals(game.getDealerUpcard(), start.getDealerUpcard());
+
+		// branching leaves the state it came from alone
+		GameState hit = start.hit();
+		GameState stood = start.stand();
+		GameState doubled = start.doubleDown();
+		assertTrue(start.isPlayerTurn());
+		assertEquals(2, start.playerHand().size());
+		assertEquals(start.cardsRemaining() - 1, hit.cardsRemaining());
+		assertEquals(3, hit.playerHand().size());
+		assertEquals(start.playerHand(), hit.playerHand().subList(0, 2));
+		assertFalse(stood.isPlayerTurn());
+		assertEquals(20, doubled.getBet());
+		assertEquals(3, doubled.playerHand().size());
+		assertFalse(doubled.canDoubleDown());
+
+		// the model deals the same cards the snapshot does
+		game.playerTakeCard();
+		assertEquals(game.getPlayerCards(), hit.playerHand());
+		if (hit.isPlayerTurn()) {
+			hit = hit.stand();
+		}
+		game.playDealerHand();
+		assertEquals(game.getDealerCards(), hit.dealerHand());
+		assertEquals(game.gameAssessment(), hit.getResult());
+		assertEquals(Rules.DEFAULT.getWinnings(10, hit.getResult()),
+				hit.getWinnings());
+
+		GameState other = start.withShuffledRemainder(new SplittableRandom(1));
+		assertEquals(start.playerHand(), other.playerHand());
+		assertEquals(start.cardsRemaining(), other.cardsRemaining());
+
+		// dealer 10 and 6, player ace and king, then the dealer draws a 5
+		byte[] ids = {9, 5, 0, 12, 4, 1};
+		GameState dealt = GameState.deal(Rules.DEFAULT, ids, 5);
+		assertEquals(HandAssessment.NATURAL_BLACKJACK,
+				HandState.assess(dealt.getPlayerState()));
+		GameState played = dealt.stand();
+		assertEquals(3, played.dealerHand().size());
+		assertEquals(21, HandState.bestTotal(played.getDealerState()));
+		assertEquals(GameResult.NATURAL_BLACKJACK, played.getResult());
+		assertEquals(7, played.getWinnings());
+		try {
+			played.hit();
+			fail("the player's turn is over");
+		} catch (IllegalStateException e) {
+		}
+	}
+
 }
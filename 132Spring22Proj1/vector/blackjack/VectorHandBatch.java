@@ -0,0 +1,75 @@
+package blackjack;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * VectorHandBatch is the HandBatch kernel written with the incubating
+ * Vector API. It works on as many hands at once as a byte vector has lanes
+ * (32 with AVX2, 64 with AVX-512): each card position is one vector load,
+ * and the hard total, ace count and card count of every hand in the vector
+ * build up in three byte vectors. The soft flag and the HandAssessment come
+ * out of lane-wise compares and blends, so there is no branch per hand. The
+ * hands after the last full vector go through HandBatch's plain loops.
+ *
+ * This class needs the jdk.incubator.vector module both to compile and to
+ * run, so it lives outside src and HandBatch only loads it by reflection
+ * when the module is there.
+ */
+final class VectorHandBatch implements HandBatch.Kernel {
+
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+	// the int vectors one byte vector widens into
+	private static final int PARTS = BYTES.length() / INTS.length();
+
+	private static final byte INSUFFICIENT_CARDS =
+			(byte) HandAssessment.INSUFFICIENT_CARDS.ordinal();
+	private static final byte BUST = (byte) HandAssessment.BUST.ordinal();
+	private static final byte NATURAL_BLACKJACK =
+			(byte) HandAssessment.NATURAL_BLACKJACK.ordinal();
+	private static final byte NORMAL = (byte) HandAssessment.NORMAL.ordinal();
+
+	VectorHandBatch() {
+	}
+
+	@Override
+	public void evaluate(byte[] values, int n, int maxCards, int[] totals,
+			byte[] soft, byte[] assessments) {
+		ByteVector zero = ByteVector.zero(BYTES);
+		int bound = BYTES.loopBound(n);
+		for(int hand = 0; hand < bound; hand += BYTES.length()) {
+			ByteVector hard = zero;
+			ByteVector aces = zero;
+			ByteVector count = zero;
+			for(int card = 0; card < maxCards; card++) {
+				ByteVector value = ByteVector.fromArray(BYTES, values,
+						card * n + hand);
+				hard = hard.add(value);
+				aces = aces.add((byte) 1, value.eq((byte) 1));
+				count = count.add((byte) 1, value.compare(VectorOperators.NE, 0));
+			}
+			// 25 tens make 250, so the hard total is compared unsigned
+			VectorMask<Byte> isSoft = aces.compare(VectorOperators.NE, 0)
+					.and(hard.compare(VectorOperators.UNSIGNED_LE, 11));
+			ByteVector best = hard.add((byte) 10, isSoft);
+			zero.blend((byte) 1, isSoft).intoArray(soft, hand);
+			ByteVector assessment = ByteVector.broadcast(BYTES, NORMAL)
+					.blend(BUST, hard.compare(VectorOperators.UNSIGNED_GT, 21))
+					.blend(NATURAL_BLACKJACK, count.eq((byte) 2)
+							.and(best.eq((byte) 21)))
+					.blend(INSUFFICIENT_CARDS, count.lt((byte) 2));
+			assessment.intoArray(assessments, hand);
+			for(int part = 0; part < PARTS; part++) {
+				((IntVector) best.convertShape(VectorOperators.B2I, INTS, part))
+						.and(0xFF).intoArray(totals, hand + part * INTS.length());
+			}
+		}
+		HandBatch.evaluate(values, n, maxCards, bound, n, totals, soft,
+				assessments);
+	}
+}